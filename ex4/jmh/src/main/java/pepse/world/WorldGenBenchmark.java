@@ -0,0 +1,221 @@
+package pepse.world;
+
+import danogl.util.Vector2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pepse.PepseGameManager;
+import pepse.world.trees.Flora;
+import pepse.world.trees.FloraData;
+import pepse.world.trees.Tree;
+import utils.NoiseGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The WorldGenBenchmark class measures the world generation hot paths: the noise behind the
+ * terrain, the terrain and flora data of a chunk, and the game objects and texture made from
+ * them. It lives in pepse.world so it can warm the height cache through Terrain.cacheRange.
+ * Run it with the allocation profiler:
+ * java -jar target/benchmarks.jar -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class WorldGenBenchmark {
+
+    /** The window dimensions the terrain is generated for. */
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1600, 900);
+
+    /** The seed of the generated world. */
+    private static final int SEED = 1;
+
+    /** The x-coordinate of the tree head used for the leaf benchmark. */
+    private static final float TREE_HEAD_X = 400;
+
+    /** The y-coordinate of the tree head used for the leaf benchmark. */
+    private static final float TREE_HEAD_Y = 300;
+
+    /** The width of the generated range, in pixels. */
+    @Param({"640", "2560", "10240"})
+    private int width;
+
+    /** The noise generator the terrain heights come from. */
+    private NoiseGenerator noiseGenerator;
+
+    /** The output buffer of the bulk noise benchmark. */
+    private float[] noise;
+
+    /** A terrain whose heights over the range are already cached. */
+    private Terrain warmTerrain;
+
+    /** The terrain data of the range. */
+    private TerrainData terrainData;
+
+    /** The flora growing on the warm terrain. */
+    private Flora flora;
+
+    /**
+     * Builds the generators and the warm caches the benchmarks read from.
+     */
+    @Setup
+    public void setUp() {
+        noiseGenerator = new NoiseGenerator(SEED,
+                (int) (WINDOW_DIMENSIONS.y() * Terrain.FACTOR_SIZE_OF_TERRAIN));
+        noise = new float[width];
+        warmTerrain = new Terrain(WINDOW_DIMENSIONS, SEED);
+        warmTerrain.cacheRange(0, width);
+        terrainData = warmTerrain.generateData(0, width);
+        flora = new Flora(warmTerrain.callGround, SEED);
+    }
+
+    /**
+     * Evaluates the noise one x-coordinate at a time.
+     *
+     * @param blackhole Consumes the results.
+     */
+    @Benchmark
+    public void noise(Blackhole blackhole) {
+        for (int x = 0; x < width; x++) {
+            blackhole.consume(noiseGenerator.noise(x, Terrain.NOISE_FACTOR));
+        }
+    }
+
+    /**
+     * Evaluates the noise of the whole range in one bulk call.
+     *
+     * @param blackhole Consumes the results.
+     */
+    @Benchmark
+    public void noiseRange(Blackhole blackhole) {
+        noiseGenerator.noiseRange(0, 1, width, Terrain.NOISE_FACTOR, noise);
+        blackhole.consume(noise);
+    }
+
+    /**
+     * Looks up the ground height of every x-coordinate on a new terrain, filling its cache.
+     *
+     * @param blackhole Consumes the results.
+     */
+    @Benchmark
+    public void groundHeightCold(Blackhole blackhole) {
+        Terrain terrain = new Terrain(WINDOW_DIMENSIONS, SEED);
+        for (int x = 0; x < width; x++) {
+            blackhole.consume(terrain.groundHeightAt(x));
+        }
+    }
+
+    /**
+     * Looks up the ground height of every x-coordinate in a warm cache.
+     *
+     * @param blackhole Consumes the results.
+     */
+    @Benchmark
+    public void groundHeightWarm(Blackhole blackhole) {
+        for (int x = 0; x < width; x++) {
+            blackhole.consume(warmTerrain.groundHeightAt(x));
+        }
+    }
+
+    /**
+     * Generates the terrain data of the range, as chunks are generated on the executor.
+     *
+     * @return The terrain data.
+     */
+    @Benchmark
+    public TerrainData terrainData() {
+        return warmTerrain.generateData(0, width);
+    }
+
+    /**
+     * Bakes the ground texture of the range.
+     *
+     * @param blackhole Consumes the texture.
+     */
+    @Benchmark
+    public void terrainTexture(Blackhole blackhole) {
+        blackhole.consume(warmTerrain.bakeTexture(terrainData));
+    }
+
+    /**
+     * Creates the blocks of the range on a new terrain.
+     *
+     * @param blackhole Consumes the blocks.
+     */
+    @Benchmark
+    public void terrainObjects(Blackhole blackhole) {
+        blackhole.consume(new Terrain(WINDOW_DIMENSIONS, SEED).createInRange(0, width));
+    }
+
+    /**
+     * Generates the flora data of the range from its terrain data.
+     *
+     * @return The flora data.
+     */
+    @Benchmark
+    public FloraData floraData() {
+        return flora.generateData(0, width, terrainData::heightAt);
+    }
+
+    /**
+     * Creates the tree trunks of the range.
+     *
+     * @param blackhole Consumes the trunks.
+     */
+    @Benchmark
+    public void floraObjects(Blackhole blackhole) {
+        blackhole.consume(flora.createInRange(0, width));
+    }
+
+    /**
+     * Creates the leaves and fruits of a single tree.
+     *
+     * @param blackhole Consumes the leaves and fruits.
+     */
+    @Benchmark
+    public void floraLeaves(Blackhole blackhole) {
+        blackhole.consume(flora.createLeafs(TREE_HEAD_X, TREE_HEAD_Y));
+    }
+
+    /**
+     * Generates a whole chunk the way ChunkManager does: the terrain data, then the flora
+     * data growing on it.
+     *
+     * @param blackhole Consumes the chunk data.
+     */
+    @Benchmark
+    public void chunk(Blackhole blackhole) {
+        TerrainData terrain = warmTerrain.generateData(0, width);
+        FloraData floraData = flora.generateData(PepseGameManager.MIN_X_TREES,
+                width + PepseGameManager.MIN_X_TREES, terrain::heightAt);
+        blackhole.consume(new ChunkData(terrain, floraData));
+    }
+
+    /**
+     * Generates a whole chunk as game objects: the blocks, the trunks, and the leaves and
+     * fruits of every tree.
+     *
+     * @param blackhole Consumes the objects.
+     */
+    @Benchmark
+    public void chunkObjects(Blackhole blackhole) {
+        Terrain terrain = new Terrain(WINDOW_DIMENSIONS, SEED);
+        Flora chunkFlora = new Flora(terrain.callGround, SEED);
+        blackhole.consume(terrain.createInRange(0, width));
+        for (Tree tree : chunkFlora.createInRange(0, width)) {
+            blackhole.consume(chunkFlora.createLeafs(tree.getxCordinate(), tree.getyCordinate()));
+        }
+    }
+}
@@ -3,24 +3,48 @@ package pepse;
 import danogl.GameManager;
 import danogl.GameObject;
 import danogl.collisions.Layer;
+import danogl.components.CoordinateSpace;
 import danogl.gui.ImageReader;
 import danogl.gui.SoundReader;
 import danogl.gui.UserInputListener;
 import danogl.gui.WindowController;
+import danogl.gui.rendering.Camera;
 import danogl.gui.rendering.TextRenderable;
 import danogl.util.Vector2;
+import pepse.hud.GlyphCache;
+import pepse.hud.Hud;
+import pepse.hud.HudCounter;
+import pepse.input.TickInput;
+import pepse.metrics.FrameMetrics;
+import pepse.metrics.MetricsReporter;
+import pepse.world.daynight.DayNightCycle;
 import pepse.world.daynight.Night;
 import pepse.world.daynight.Sun;
 import pepse.world.daynight.SunHalo;
 import pepse.world.trees.Flora;
-import pepse.world.trees.Tree;
+import pepse.world.ChunkManager;
 import pepse.world.Terrain;
 import pepse.world.Sky;
 import pepse.world.Block;
 import pepse.world.Avatar;
 import pepse.world.Energy;
+import pepse.world.WorldFile;
+import pepse.world.WorldStore;
+import pepse.world.CameraFocus;
+import pepse.world.ParallaxBand;
+import pepse.world.SpriteAtlas;
+import pepse.world.TimingWheel;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleSupplier;
 
-import java.util.List;
 /**
  * The PepseGameManager class manages the main game logic and initialization.
  * It extends the GameManager class from the danogl library.
@@ -30,14 +54,24 @@ public class PepseGameManager extends GameManager {
     /** The layer for rendering leaf objects. */
     public static final int LAYER_LEAF = Layer.STATIC_OBJECTS + 20;
 
+    /** The layer for rendering fruit objects. It does not collide with any other layer,
+     * since the avatar finds fruits through the fruit grid. */
+    public static final int FRUIT_LAYER = Layer.STATIC_OBJECTS + 10;
+
     /** The minimum x-coordinate for spawning trees. */
     public static final int MIN_X_TREES = 2;
 
     /** The dimensions of the energy display. */
     public static final int ENERGY_DIM = 20;
 
-    /** The initial energy value. */
-    public static final int INIT_ENERGY = 100;
+    /** The number of decimals of the energy display. */
+    public static final int ENERGY_PRECISION = 0;
+
+    /** The point size the HUD glyphs are drawn in, before scaling to ENERGY_DIM. */
+    public static final int HUD_FONT_SIZE = 32;
+
+    /** The color of the HUD glyphs. */
+    public static final Color HUD_COLOR = Color.BLACK;
 
     /** The initial position of the avatar. */
     public static final int INIT_POS_AVATAR = 0;
@@ -48,21 +82,160 @@ public class PepseGameManager extends GameManager {
     /** The layer for rendering the sun. */
     public static final int SUN_LAYER = Layer.BACKGROUND + 2;
 
-    /** The length of the sun cycle. */
-    public static final int SUN_CYCLE_LENGTH = 30;
+    /** The layer of the invisible objects swaying the leaves, which collides with nothing. */
+    public static final int WIND_LAYER = Layer.BACKGROUND + 3;
+
+    /** The layer of the parallax clouds, in front of the sun. */
+    public static final int CLOUDS_LAYER = Layer.BACKGROUND + 4;
+
+    /** The layer of the parallax hills, in front of the clouds. */
+    public static final int HILLS_LAYER = Layer.BACKGROUND + 5;
+
+    /** The layer of the baked terrain textures, in front of the hills. */
+    public static final int TERRAIN_LAYER = Layer.BACKGROUND + 6;
+
+    /** Half the width and height of the camera deadzone around the avatar. */
+    public static final Vector2 CAMERA_DEADZONE = new Vector2(Block.SIZE * 4, Block.SIZE * 3);
+
+    /** How fast the camera catches up with the avatar, per second. */
+    public static final float CAMERA_SMOOTHING = 6;
+
+    /** How fast the clouds and hills scroll relative to the world. */
+    public static final float CLOUDS_PARALLAX = 0.05f, HILLS_PARALLAX = 0.2f;
+
+    /** The colors of the clouds and hills. */
+    public static final Color CLOUDS_COLOR = new Color(255, 255, 255, 170),
+            HILLS_COLOR = new Color(92, 140, 160);
+
+    /** The number of clouds in the cloud band. */
+    public static final int CLOUD_COUNT = 7;
 
-    /** The duration of the night cycle. */
-    public static final int NIGHT_CYCLE_SUN = 30;
+    /** The length of the day-night cycle, in seconds of world time. */
+    public static final int DAY_CYCLE_LENGTH = 30;
 
     /** The target framerate of the game. */
     public static final int TARGET_FRAMERATE = 42;
 
-    /** The minimum x-coordinate for generating terrain. */
-    public static final int TERRAIN_MIN_X = 0;
+    /** The seed the whole world is generated from. */
+    public static final int WORLD_SEED = 1;
+
+    /** The width of a world chunk, in pixels. */
+    public static final int CHUNK_WIDTH = Block.SIZE * 32;
+
+    /** The number of top terrain layers baked with their own shades in each column. */
+    public static final int TERRAIN_SURFACE_LAYERS = 3;
+
+    /** The number of chunks kept loaded beyond the ones covering the window. */
+    public static final int CHUNK_MARGIN = 1;
+
+    /** The file the explored world is saved to and loaded from. */
+    public static final Path WORLD_FILE = Paths.get("pepse-world.bin");
+
+    /** The world time between two saves of the world file, in seconds. */
+    public static final double SAVE_INTERVAL = 30;
+
+    /**
+     * The fixed time the world advances by in every simulation step, in seconds. A step as long
+     * as a frame makes frames that arrive slightly early or late run 0 or 2 steps, so motion
+     * visibly stops and jumps. With a step a fraction of a frame, every frame runs 2 or 3 steps
+     * and the error is a third of a frame at most, without interpolating the rendered positions
+     * between steps. The cost is updating the game objects, including the collision pass,
+     * about three times per frame; the metrics report the steps per frame and the mean time of
+     * a step, so the cost can be read off directly. Anything changing per update must therefore
+     * scale with the step, as the avatar's energy rates do.
+     */
+    public static final float SIMULATION_STEP = 1f / 120;
+
+    /**
+     * The most simulation steps run in one frame, covering a tenth of a second; time beyond
+     * them is dropped, so a slow frame cannot make the next ones slower.
+     */
+    public static final int MAX_STEPS_PER_FRAME = 12;
+
+    /** The system property enabling the metrics overlay and CSV file. */
+    public static final String METRICS_PROPERTY = "pepse.metrics";
+
+    /** The CSV file metrics are written to when enabled. */
+    public static final Path METRICS_FILE = Paths.get("pepse-metrics.csv");
+
+    /** The length of a metrics window, in seconds. */
+    public static final double METRICS_WINDOW = 1;
+
+    /** The dimensions of the metrics overlay. */
+    public static final Vector2 METRICS_OVERLAY_DIM = new Vector2(ENERGY_DIM * 24, ENERGY_DIM);
+
+    /** The distance beyond the window within which culled chunks are put back, in pixels. */
+    public static final float CULL_MARGIN = Block.SIZE * 5;
 
     /** The flora instance for managing trees and vegetation. */
     private Flora flora;
 
+    /** The store keeping the data of every generated chunk and the world time. */
+    private WorldStore worldStore;
+
+    /** The wheel of deferred world events, such as fruits growing back. */
+    private TimingWheel worldEvents;
+
+    /** The chunk manager streaming terrain and flora around the camera. */
+    private ChunkManager chunkManager;
+
+    /** The world time of the last save of the world file. */
+    private double lastSave;
+
+    /** The file the world is saved to and loaded from, or null to keep the world in memory. */
+    private final Path worldFile;
+
+    /** The input recorded or replayed tick by tick, or null to read the keyboard directly. */
+    private final TickInput tickInput;
+
+    /** The frame time not yet simulated, in seconds. */
+    private double unsimulatedTime = 0;
+
+    /** The metrics recording frame times and world object counts. */
+    private final FrameMetrics metrics = new FrameMetrics();
+
+    /** The reporter publishing metrics samples. */
+    private MetricsReporter metricsReporter;
+
+    /**
+     * Constructs a new PepseGameManager instance that saves the world to the world file, and
+     * records or replays its input if the input trace system properties ask for it.
+     */
+    public PepseGameManager() {
+        this(WORLD_FILE, TickInput.fromProperties(WORLD_SEED));
+    }
+
+    /**
+     * Constructs a new PepseGameManager instance reading the keyboard directly.
+     * @param worldFile The file the world is saved to and loaded from, or null to keep the
+     *                  world in memory only.
+     */
+    public PepseGameManager(Path worldFile) {
+        this(worldFile, null);
+    }
+
+    /**
+     * Constructs a new PepseGameManager instance. A run whose input is recorded or replayed
+     * starts from a newly generated world and is not saved, so that a replay starts from the
+     * same state as its recording.
+     * @param worldFile The file the world is saved to and loaded from, or null to keep the
+     *                  world in memory only.
+     * @param tickInput The input recorded or replayed tick by tick, or null to read the
+     *                  keyboard directly.
+     */
+    public PepseGameManager(Path worldFile, TickInput tickInput) {
+        this.worldFile = tickInput == null ? worldFile : null;
+        this.tickInput = tickInput;
+    }
+
+    /**
+     * Gets the metrics recording frame times and world object counts.
+     * @return The frame metrics.
+     */
+    public FrameMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * The main method to start the game.
      * @param args Command line arguments.
@@ -82,87 +255,239 @@ public class PepseGameManager extends GameManager {
     public void initializeGame(ImageReader imageReader, SoundReader soundReader,
                                UserInputListener inputListener, WindowController windowController) {
         super.initializeGame(imageReader, soundReader, inputListener, windowController);
+        CompletableFuture<SpriteAtlas> avatarSprites = Avatar.preloadSprites();
+        if (tickInput != null) {
+            inputListener = tickInput.attach(inputListener);
+        }
         createBackground(windowController);
-        Terrain terrain = createTerrain(windowController);
-        createUpperObjects(windowController, terrain);
-        createInsideGame(imageReader, inputListener, terrain);
+        Terrain terrain = new Terrain(windowController.getWindowDimensions(), WORLD_SEED,
+                TERRAIN_SURFACE_LAYERS);
+        createWorld(windowController, terrain);
+        createInsideGame(imageReader, avatarSprites, inputListener, windowController, terrain);
     }
 
     /**
-     * Creates the background elements such as sky, sun, and night.
+     * Creates the background elements such as sky, sun, and night, and the day-night cycle
+     * driving them from the world time.
      * @param windowController The window controller for managing the game window.
      */
     private void createBackground(WindowController windowController) {
         windowController.setTargetFramerate(TARGET_FRAMERATE);
-        GameObject sky = Sky.create(windowController.getWindowDimensions());
-        GameObject night = Night.create(windowController.getWindowDimensions(), NIGHT_CYCLE_SUN);
-        GameObject sun = Sun.create(windowController.getWindowDimensions(), SUN_CYCLE_LENGTH);
+        Vector2 windowDimensions = windowController.getWindowDimensions();
+        GameObject sky = Sky.create(windowDimensions);
+        GameObject night = Night.create(windowDimensions);
+        GameObject sun = Sun.create(windowDimensions);
         GameObject haloSun = SunHalo.create(sun);
+        GameObject cycle = new DayNightCycle(windowDimensions, DAY_CYCLE_LENGTH,
+                () -> worldStore.time(), sky, sun, haloSun, night);
         gameObjects().addGameObject(sky, Layer.BACKGROUND);
+        gameObjects().addGameObject(cycle, Layer.BACKGROUND);
         gameObjects().addGameObject(haloSun, HALO_SUN_LAYER);
         gameObjects().addGameObject(sun, SUN_LAYER);
         gameObjects().addGameObject(night, Layer.FOREGROUND);
     }
 
     /**
-     * Creates the terrain and adds it to the game objects.
+     * Creates the world store, the world event wheel, the flora and the chunk manager that
+     * streams the world around the camera.
      * @param windowController The window controller for managing the game window.
-     * @return The generated terrain.
-     */
-    private Terrain createTerrain(WindowController windowController) {
-        Terrain terrain = new Terrain(windowController.getWindowDimensions(), 1);
-        List<Block> blockLists = terrain.createInRange(TERRAIN_MIN_X,
-                (int) windowController.getWindowDimensions().x());
-        for (Block block : blockLists) {
-            gameObjects().addGameObject(block, Layer.STATIC_OBJECTS);
+     * @param terrain The generated terrain.
+     */
+    private void createWorld(WindowController windowController, Terrain terrain) {
+        worldStore = openWorldStore();
+        lastSave = worldStore.time();
+        worldEvents = new TimingWheel(SIMULATION_STEP, worldStore.time());
+        flora = new Flora(terrain.callGround, WORLD_SEED, worldStore::time, worldEvents);
+        float halfWindow = windowController.getWindowDimensions().x() / 2;
+        int loadRadius = (int) Math.ceil(halfWindow / CHUNK_WIDTH) + CHUNK_MARGIN;
+        chunkManager = new ChunkManager(terrain, flora, worldStore, gameObjects(), CHUNK_WIDTH,
+                loadRadius);
+        chunkManager.setMetrics(metrics);
+        chunkManager.enableCulling(halfWindow, CULL_MARGIN);
+        chunkManager.loadNow(INIT_POS_AVATAR);
+        if (worldFile != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::saveOnExit));
         }
-        return terrain;
     }
 
     /**
-     * Creates upper objects such as trees and vegetation.
-     * @param windowController The window controller for managing the game window.
-     * @param terrain The generated terrain.
+     * Opens the saved world if the world file holds one generated with the same seed and chunk
+     * width, or starts a new world otherwise.
+     * @return The world store.
      */
-    private void createUpperObjects(WindowController windowController, Terrain terrain) {
-        flora = new Flora(terrain.callGround);
-        for (Tree tree : flora.createInRange(MIN_X_TREES,
-                (int) windowController.getWindowDimensions().x())) {
-            List<List<GameObject>> list = flora.createLeafs(tree.getxCordinate(), tree.getyCordinate());
-            for (GameObject leaf : list.get(0)) {
-                gameObjects().addGameObject(leaf, LAYER_LEAF);
+    private WorldStore openWorldStore() {
+        if (worldFile != null && Files.exists(worldFile)) {
+            try {
+                WorldFile file = WorldFile.open(worldFile);
+                if (file.seed() == WORLD_SEED && file.chunkWidth() == CHUNK_WIDTH) {
+                    return new WorldStore(file);
+                }
+            } catch (IOException e) {
+                System.err.println("Could not load " + worldFile + ": " + e.getMessage());
             }
-            for (GameObject fruit : list.get(1)) {
-                gameObjects().addGameObject(fruit, Layer.STATIC_OBJECTS);
-            }
-            gameObjects().addGameObject(tree, Layer.STATIC_OBJECTS);
+        }
+        return new WorldStore();
+    }
+
+    /**
+     * Starts saving the world file in the background. The file is written off the game thread,
+     * and replaced by pollWorldSave once it is on the disk.
+     */
+    private void saveWorld() {
+        lastSave = worldStore.time();
+        worldStore.saveAsync(worldFile, WORLD_SEED, CHUNK_WIDTH, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Saves the world file one last time when the JVM shuts down, so quitting keeps the chunks
+     * explored and the fruits eaten since the last periodic save. A save still being written
+     * is finished first. Synchronized with update, so the world does not change while it is
+     * encoded.
+     */
+    private synchronized void saveOnExit() {
+        try {
+            worldStore.save(worldFile, WORLD_SEED, CHUNK_WIDTH);
+        } catch (IOException e) {
+            System.err.println("Could not save " + worldFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Finishes a background save of the world file, reporting a failure without stopping the
+     * game.
+     */
+    private void pollWorldSave() {
+        try {
+            worldStore.pollSave();
+        } catch (IOException e) {
+            System.err.println("Could not save " + worldFile + ": " + e.getMessage());
         }
     }
 
     /**
      * Creates objects inside the game such as energy display and avatar.
      * @param imageReader The image reader for loading images.
+     * @param avatarSprites The sprite atlas of the avatar being loaded.
      * @param inputListener The user input listener for capturing input events.
+     * @param windowController The window controller for managing the game window.
      * @param terrain The generated terrain.
      */
-    private void createInsideGame(ImageReader imageReader, UserInputListener inputListener,
-                                  Terrain terrain) {
-        Energy energy = new Energy(Vector2.ZERO, new Vector2(ENERGY_DIM, ENERGY_DIM),
-                new TextRenderable(String.valueOf(INIT_ENERGY)));
-        gameObjects().addGameObject(energy);
+    private void createInsideGame(ImageReader imageReader,
+                                  CompletableFuture<SpriteAtlas> avatarSprites,
+                                  UserInputListener inputListener,
+                                  WindowController windowController, Terrain terrain) {
+        GlyphCache glyphs = new GlyphCache(HUD_FONT_SIZE, HUD_COLOR);
+        Hud hud = new Hud(gameObjects(), Layer.UI, Vector2.ZERO, ENERGY_DIM);
+        gameObjects().addGameObject(hud, Layer.BACKGROUND);
+        Energy energy = new Energy(glyphs, ENERGY_DIM, ENERGY_PRECISION);
+        hud.add(energy, null);
+        createMetricsReporter(hud, glyphs);
         Vector2 pos = new Vector2(INIT_POS_AVATAR, (terrain.groundHeightAt(INIT_POS_AVATAR)
                 - Avatar.SIZE_OF_AVATAR));
-        GameObject avatar = new Avatar(pos, inputListener, imageReader, energy::updateEnergy,
-                flora::isJumping);
+        GameObject avatar;
+        try {
+            avatar = new Avatar(pos, inputListener, avatarSprites.join(), energy::updateEnergy,
+                    flora::isJumping, flora.getFruitGrid());
+        } catch (CompletionException e) {
+            System.err.println("Could not load the avatar sprites: " + e.getCause().getMessage());
+            avatar = new Avatar(pos, inputListener, imageReader, energy::updateEnergy,
+                    flora::isJumping, flora.getFruitGrid());
+        }
         gameObjects().addGameObject(avatar);
+        Vector2 windowDimensions = windowController.getWindowDimensions();
+        CameraFocus focus = new CameraFocus(avatar, CAMERA_DEADZONE, CAMERA_SMOOTHING);
+        gameObjects().addGameObject(focus, Layer.BACKGROUND);
+        setCamera(new Camera(focus,
+                new Vector2(0, windowDimensions.y() / 2 - focus.getCenter().y()),
+                windowDimensions, windowDimensions));
+        createParallax(windowDimensions, () -> focus.getCenter().x());
+    }
+
+    /**
+     * Creates the clouds and distant hills scrolling slower than the world.
+     * @param windowDimensions The dimensions of the game window.
+     * @param cameraX Supplies the x-coordinate of the camera center.
+     */
+    private void createParallax(Vector2 windowDimensions, DoubleSupplier cameraX) {
+        int width = (int) windowDimensions.x();
+        int cloudsHeight = (int) (windowDimensions.y() / 4);
+        for (GameObject tile : ParallaxBand.create(windowDimensions,
+                ParallaxBand.clouds(width, cloudsHeight, WORLD_SEED, CLOUD_COUNT, CLOUDS_COLOR),
+                cloudsHeight / 4f, CLOUDS_PARALLAX, cameraX)) {
+            gameObjects().addGameObject(tile, CLOUDS_LAYER);
+        }
+        int hillsHeight = (int) (windowDimensions.y() / 3);
+        for (GameObject tile : ParallaxBand.create(windowDimensions,
+                ParallaxBand.hills(width, hillsHeight, WORLD_SEED, HILLS_COLOR),
+                windowDimensions.y() / 3, HILLS_PARALLAX, cameraX)) {
+            gameObjects().addGameObject(tile, HILLS_LAYER);
+        }
     }
 
     /**
-     * Updates the game logic.
+     * Creates the metrics reporter. When the metrics system property is set, frame rate and
+     * live object counters are added to the HUD, and the reporter also shows an overlay next
+     * to the energy display and writes the metrics CSV file; otherwise it only emits flight
+     * recorder events.
+     * @param hud The HUD the counters are added to.
+     * @param glyphs The glyphs of the counters.
+     */
+    private void createMetricsReporter(Hud hud, GlyphCache glyphs) {
+        if (!Boolean.getBoolean(METRICS_PROPERTY)) {
+            metricsReporter = new MetricsReporter(null, null);
+            return;
+        }
+        hud.add(new HudCounter(glyphs, ENERGY_DIM, "fps ", 3, 0, ""),
+                metrics::currentFramesPerSecond);
+        hud.add(new HudCounter(glyphs, ENERGY_DIM, "obj ", 6, 0, ""), metrics::liveObjects);
+        TextRenderable text = new TextRenderable("");
+        GameObject overlay = new GameObject(new Vector2(ENERGY_DIM * 6, 0), METRICS_OVERLAY_DIM,
+                text);
+        overlay.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+        gameObjects().addGameObject(overlay, Layer.UI);
+        metricsReporter = new MetricsReporter(text, METRICS_FILE);
+    }
+
+    /**
+     * Updates the game logic. The frame time is accumulated and the world is advanced in
+     * fixed simulation steps, so movement, energy and fruit regrowth behave the same at any
+     * frame rate. A frame runs as many steps as fit in the accumulated time, up to a limit
+     * after which the rest is dropped so a slow frame cannot snowball into slower ones.
+     * The objects are drawn at their state after the last step; the engine offers no hook to
+     * draw them between steps. Synchronized with the final save on exit, which runs on the
+     * shutdown thread.
      * @param deltaTime The time passed since the last update.
      */
     @Override
-    public void update(float deltaTime) {
-        super.update(deltaTime);
+    public synchronized void update(float deltaTime) {
+        metrics.beginFrame();
+        if (tickInput != null) {
+            deltaTime = tickInput.beginTick(deltaTime);
+        }
+        unsimulatedTime += deltaTime;
+        int steps = 0;
+        metrics.beginSteps();
+        while (unsimulatedTime >= SIMULATION_STEP && steps < MAX_STEPS_PER_FRAME) {
+            super.update(SIMULATION_STEP);
+            worldStore.advance(SIMULATION_STEP);
+            worldEvents.advanceTo(worldStore.time());
+            unsimulatedTime -= SIMULATION_STEP;
+            steps++;
+        }
+        metrics.endSteps(steps);
+        if (steps == MAX_STEPS_PER_FRAME) {
+            unsimulatedTime = Math.min(unsimulatedTime, SIMULATION_STEP);
+        }
+        chunkManager.update(camera().getCenter().x());
+        if (worldFile != null) {
+            pollWorldSave();
+            if (worldStore.time() - lastSave >= SAVE_INTERVAL) {
+                saveWorld();
+            }
+        }
+        metrics.endFrame();
+        if (metrics.windowElapsed(METRICS_WINDOW)) {
+            metricsReporter.report(metrics.sample());
+        }
     }
 }
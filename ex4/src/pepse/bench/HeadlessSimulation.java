@@ -0,0 +1,148 @@
+package pepse.bench;
+
+import danogl.gui.ImageReader;
+import danogl.gui.SoundReader;
+import danogl.gui.WindowController;
+import danogl.util.Vector2;
+import pepse.PepseGameManager;
+import pepse.input.InputTrace;
+import pepse.input.ProxyDefaults;
+import pepse.input.TickInput;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The HeadlessSimulation class runs the game without a window, driving the avatar with a
+ * scripted input and ticking the world as fast as it can instead of at the target framerate.
+ * Every report interval it prints the tick rate, the heap in use and the garbage collections
+ * so far, which makes it suitable for soak and throughput testing. Given a recorded input
+ * trace it replays the recorded run instead, tick for tick.
+ * Run it with the danogl jar on the classpath:
+ * java -cp danogl.jar:out pepse.bench.HeadlessSimulation [--ticks=N] [--script=FILE]
+ * [--replay=FILE] [--world=FILE] [--report=N]
+ */
+public class HeadlessSimulation {
+
+    /** The simulated time of a tick, matching the game's target framerate. */
+    private static final float TICK_SECONDS = 1f / PepseGameManager.TARGET_FRAMERATE;
+
+    /** The window dimensions the world is simulated for. */
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1600, 900);
+
+    /** The number of ticks simulated when none is given: one hour of game time. */
+    private static final long DEFAULT_TICKS = 3600L * PepseGameManager.TARGET_FRAMERATE;
+
+    /** The number of ticks between reports when none is given. */
+    private static final long DEFAULT_REPORT_TICKS = 10_000;
+
+    /** The number of bytes in a megabyte. */
+    private static final double BYTES_PER_MB = 1024 * 1024;
+
+    /** The number of nanoseconds in a second. */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * Runs the simulation.
+     *
+     * @param args Options of the form --ticks=N, --script=FILE, --replay=FILE, --world=FILE
+     *             and --report=N. Without --world, and always when replaying, the world is kept
+     *             in memory and no file is written.
+     * @throws IOException If the script or trace file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        long ticks = DEFAULT_TICKS;
+        long reportTicks = DEFAULT_REPORT_TICKS;
+        ScriptedInput input = new ScriptedInput(ScriptedInput.DEFAULT_SCRIPT);
+        TickInput replay = null;
+        Path worldFile = null;
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--ticks=")) {
+                ticks = Long.parseLong(value);
+            } else if (arg.startsWith("--report=")) {
+                reportTicks = Long.parseLong(value);
+            } else if (arg.startsWith("--script=")) {
+                input = new ScriptedInput(Files.readAllLines(Paths.get(value)));
+            } else if (arg.startsWith("--replay=")) {
+                InputTrace trace = InputTrace.read(Paths.get(value));
+                replay = TickInput.replaying(trace, PepseGameManager.WORLD_SEED);
+                ticks = Math.min(ticks, trace.ticks());
+            } else if (arg.startsWith("--world=")) {
+                worldFile = Paths.get(value);
+            } else {
+                throw new IllegalArgumentException("unknown option: " + arg);
+            }
+        }
+        run(new PepseGameManager(worldFile, replay), input, ticks, reportTicks);
+    }
+
+    /**
+     * Initializes a game with a headless window and the scripted input, then ticks it. A game
+     * replaying a trace takes the input and frame times of each tick from the trace instead.
+     *
+     * @param game        The game to run.
+     * @param input       The scripted input.
+     * @param ticks       The number of ticks to simulate.
+     * @param reportTicks The number of ticks between reports.
+     */
+    public static void run(PepseGameManager game, ScriptedInput input, long ticks,
+                           long reportTicks) {
+        WindowController window = headlessWindow();
+        game.initializeGame(new ImageReader(window), new SoundReader(window),
+                input.asListener(), window);
+        System.out.printf("%12s %12s %12s %10s %10s %10s%n",
+                "ticks", "game s", "ticks/s", "heap MB", "gc count", "gc ms");
+        long windowStart = System.nanoTime();
+        for (long tick = 1; tick <= ticks; tick++) {
+            game.update(TICK_SECONDS);
+            input.advance();
+            if (tick % reportTicks == 0 || tick == ticks) {
+                long now = System.nanoTime();
+                long windowTicks = tick % reportTicks == 0 ? reportTicks : tick % reportTicks;
+                report(tick, windowTicks * NANOS_PER_SECOND / (now - windowStart));
+                windowStart = now;
+            }
+        }
+    }
+
+    /**
+     * Prints one report line.
+     *
+     * @param tick        The number of ticks simulated so far.
+     * @param ticksPerSec The tick rate since the last report.
+     */
+    private static void report(long tick, double ticksPerSec) {
+        long gcCount = 0;
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(0, bean.getCollectionCount());
+            gcMillis += Math.max(0, bean.getCollectionTime());
+        }
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        System.out.printf("%12d %12.0f %12.0f %10.1f %10d %10d%n", tick, tick * TICK_SECONDS,
+                ticksPerSec, heapUsed / BYTES_PER_MB, gcCount, gcMillis);
+    }
+
+    /**
+     * Creates a window controller without a window. It reports the simulated window
+     * dimensions and ignores every other request, including the target framerate.
+     *
+     * @return The headless window controller.
+     */
+    private static WindowController headlessWindow() {
+        return (WindowController) Proxy.newProxyInstance(WindowController.class.getClassLoader(),
+                new Class<?>[]{WindowController.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getWindowDimensions")) {
+                        return WINDOW_DIMENSIONS;
+                    }
+                    return ProxyDefaults.defaultValue(method.getReturnType());
+                });
+    }
+}
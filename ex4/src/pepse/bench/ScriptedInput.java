@@ -0,0 +1,139 @@
+package pepse.bench;
+
+import danogl.gui.UserInputListener;
+import pepse.input.ProxyDefaults;
+
+import java.awt.event.KeyEvent;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ScriptedInput class replaces the keyboard with a looping script of key states. Each
+ * script line holds a number of ticks followed by the names of the keys held during them,
+ * e.g. "30 RIGHT SPACE"; a line with no keys holds nothing, and lines starting with '#' are
+ * comments. Key names are the KeyEvent constants without their "VK_" prefix.
+ */
+public class ScriptedInput {
+
+    /** The script walking right while jumping now and then, used when no script is given. */
+    public static final List<String> DEFAULT_SCRIPT = List.of(
+            "# walk right, jump while walking, rest, and walk back a little",
+            "240 RIGHT",
+            "20 RIGHT SPACE",
+            "120 RIGHT",
+            "10 SPACE",
+            "60",
+            "80 LEFT");
+
+    /** The keys held during each step of the script. */
+    private final List<int[]> stepKeys = new ArrayList<>();
+
+    /** The number of ticks of each step of the script. */
+    private final List<Integer> stepTicks = new ArrayList<>();
+
+    /** The current step. */
+    private int step = 0;
+
+    /** The number of ticks left in the current step. */
+    private int ticksLeft;
+
+    /**
+     * Constructs a new ScriptedInput instance.
+     *
+     * @param lines The lines of the script.
+     * @throws IllegalArgumentException If a line is malformed or names an unknown key, or the
+     *                                  script has no ticks.
+     */
+    public ScriptedInput(List<String> lines) {
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] parts = trimmed.split("\\s+");
+            int ticks;
+            try {
+                ticks = Integer.parseInt(parts[0]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("bad tick count in script line: " + line);
+            }
+            int[] keys = new int[parts.length - 1];
+            for (int i = 1; i < parts.length; i++) {
+                keys[i - 1] = keyCode(parts[i]);
+            }
+            stepTicks.add(ticks);
+            stepKeys.add(keys);
+        }
+        if (stepTicks.stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("script has no ticks");
+        }
+        ticksLeft = stepTicks.get(0);
+        skipFinishedSteps();
+    }
+
+    /**
+     * Moves the script forward by one tick, looping back to its start after the last step.
+     * Called after each tick, so the first tick reads the first step of the script.
+     */
+    public void advance() {
+        ticksLeft--;
+        skipFinishedSteps();
+    }
+
+    /**
+     * Moves past the steps with no ticks left, looping back to the start of the script.
+     */
+    private void skipFinishedSteps() {
+        while (ticksLeft <= 0) {
+            step = (step + 1) % stepTicks.size();
+            ticksLeft = stepTicks.get(step);
+        }
+    }
+
+    /**
+     * Checks whether a key is held in the current tick.
+     *
+     * @param keyCode The KeyEvent code of the key.
+     * @return True if the key is held.
+     */
+    public boolean isKeyPressed(int keyCode) {
+        for (int key : stepKeys.get(step)) {
+            if (key == keyCode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates an input listener reading the script. Queries other than key states report
+     * that nothing is pressed.
+     *
+     * @return The input listener.
+     */
+    public UserInputListener asListener() {
+        return (UserInputListener) Proxy.newProxyInstance(UserInputListener.class.getClassLoader(),
+                new Class<?>[]{UserInputListener.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("isKeyPressed")) {
+                        return isKeyPressed((Integer) args[0]);
+                    }
+                    return ProxyDefaults.defaultValue(method.getReturnType());
+                });
+    }
+
+    /**
+     * Looks up the code of a key by name.
+     *
+     * @param name The KeyEvent constant name without its "VK_" prefix.
+     * @return The key code.
+     * @throws IllegalArgumentException If there is no such key.
+     */
+    private static int keyCode(String name) {
+        try {
+            return KeyEvent.class.getField("VK_" + name.toUpperCase()).getInt(null);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalArgumentException("unknown key in script: " + name);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package pepse.hud;
+
+import danogl.gui.rendering.ImageRenderable;
+import danogl.gui.rendering.Renderable;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * The GlyphCache class renders the printable ASCII characters of a monospaced font into images,
+ * each the first time it is asked for, and hands out the same renderable afterwards. Text built
+ * from these glyphs is never laid out again once its characters have been drawn.
+ * Must be used from the game thread.
+ */
+public class GlyphCache {
+
+    /** The first cached character. */
+    private static final char FIRST_CHAR = ' ';
+
+    /** The last cached character. */
+    private static final char LAST_CHAR = '~';
+
+    /** The font of the glyphs. */
+    private final Font font;
+
+    /** The color of the glyphs. */
+    private final Color color;
+
+    /** The width and height of every glyph image, in pixels. */
+    private final int cellWidth, cellHeight;
+
+    /** The distance from the top of a glyph image to the baseline, in pixels. */
+    private final int ascent;
+
+    /** The rendered glyphs, indexed by character from FIRST_CHAR, or null if not drawn yet. */
+    private final ImageRenderable[] glyphs = new ImageRenderable[LAST_CHAR - FIRST_CHAR + 1];
+
+    /**
+     * Constructs a new GlyphCache instance.
+     *
+     * @param fontSize The point size of the font the glyphs are drawn in.
+     * @param color    The color of the glyphs.
+     */
+    public GlyphCache(int fontSize, Color color) {
+        this.font = new Font(Font.MONOSPACED, Font.BOLD, fontSize);
+        this.color = color;
+        Graphics2D graphics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        FontMetrics metrics = graphics.getFontMetrics(font);
+        this.cellWidth = Math.max(1, metrics.charWidth('0'));
+        this.cellHeight = Math.max(1, metrics.getAscent() + metrics.getDescent());
+        this.ascent = metrics.getAscent();
+        graphics.dispose();
+    }
+
+    /**
+     * Gets the renderable of a character, drawing it on first use.
+     *
+     * @param c The character.
+     * @return The glyph of the character, or null for a space.
+     * @throws IllegalArgumentException If the character is not printable ASCII.
+     */
+    public Renderable glyph(char c) {
+        if (c < FIRST_CHAR || c > LAST_CHAR) {
+            throw new IllegalArgumentException("no glyph for character " + (int) c);
+        }
+        if (c == ' ') {
+            return null;
+        }
+        ImageRenderable glyph = glyphs[c - FIRST_CHAR];
+        if (glyph == null) {
+            BufferedImage image = new BufferedImage(cellWidth, cellHeight,
+                    BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setFont(font);
+            graphics.setColor(color);
+            graphics.drawString(String.valueOf(c), 0, ascent);
+            graphics.dispose();
+            glyph = new ImageRenderable(image);
+            glyphs[c - FIRST_CHAR] = glyph;
+        }
+        return glyph;
+    }
+
+    /**
+     * Gets the aspect ratio of a glyph.
+     *
+     * @return The width of a glyph divided by its height.
+     */
+    public float aspectRatio() {
+        return cellWidth / (float) cellHeight;
+    }
+}
@@ -0,0 +1,86 @@
+package pepse.hud;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.util.Vector2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * The Hud class stacks counters in the corner of the screen and feeds the ones that have a
+ * source with a fresh value every frame. Counters redraw themselves only when their shown
+ * number changes. The HUD must be added to a layer that collides with nothing.
+ */
+public class Hud extends GameObject {
+
+    /** The game objects the counters are added to. */
+    private final GameObjectCollection gameObjects;
+
+    /** The layer of the counters. */
+    private final int layer;
+
+    /** The top-left corner of the first counter, in camera coordinates. */
+    private final Vector2 topLeft;
+
+    /** The distance between the tops of consecutive counters, in pixels. */
+    private final float lineHeight;
+
+    /** The counters, from the top down. */
+    private final List<HudCounter> counters = new ArrayList<>();
+
+    /** The source of each counter, or null for a counter set by its owner. */
+    private final List<DoubleSupplier> sources = new ArrayList<>();
+
+    /**
+     * Constructs a new Hud instance without counters.
+     *
+     * @param gameObjects The game objects the counters are added to.
+     * @param layer       The layer of the counters.
+     * @param topLeft     The top-left corner of the first counter, in camera coordinates.
+     * @param lineHeight  The distance between the tops of consecutive counters, in pixels.
+     */
+    public Hud(GameObjectCollection gameObjects, int layer, Vector2 topLeft, float lineHeight) {
+        super(Vector2.ZERO, Vector2.ZERO, null);
+        this.gameObjects = gameObjects;
+        this.layer = layer;
+        this.topLeft = topLeft;
+        this.lineHeight = lineHeight;
+    }
+
+    /**
+     * Adds a counter below the previous ones.
+     *
+     * @param counter The counter.
+     * @param source  Supplies the value of the counter every frame, or null if the counter
+     *                is set by its owner.
+     * @return The counter.
+     */
+    public HudCounter add(HudCounter counter, DoubleSupplier source) {
+        counter.setTopLeft(topLeft.add(new Vector2(0, counters.size() * lineHeight)));
+        counter.addTo(gameObjects, layer);
+        counters.add(counter);
+        sources.add(source);
+        if (source != null) {
+            counter.setValue(source.getAsDouble());
+        }
+        return counter;
+    }
+
+    /**
+     * Feeds every counter with a source its current value.
+     *
+     * @param deltaTime The time passed since the last update, in seconds.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        for (int i = 0; i < counters.size(); i++) {
+            DoubleSupplier source = sources.get(i);
+            if (source != null) {
+                counters.get(i).setValue(source.getAsDouble());
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package pepse.hud;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.components.CoordinateSpace;
+import danogl.util.Vector2;
+
+import java.util.Arrays;
+
+/**
+ * The HudCounter class shows a number on the screen as a row of cached glyphs, between a fixed
+ * label and suffix. The number is rounded to a fixed number of decimals, and the glyphs are
+ * only swapped when the rounded number changes, so setting an unchanged value costs a compare
+ * and setting a new one allocates nothing.
+ */
+public class HudCounter {
+
+    /** The glyphs the counter is drawn with. */
+    private final GlyphCache glyphs;
+
+    /** The text before the number. */
+    private final String label;
+
+    /** The text after the number. */
+    private final String suffix;
+
+    /** The number of decimals shown. */
+    private final int precision;
+
+    /** The factor turning a value into the whole number of its last shown decimal. */
+    private final long scale;
+
+    /** The largest whole number of last decimals that fits the digits. */
+    private final long maxScaled;
+
+    /** The width of a character on the screen, in pixels. */
+    private final float slotWidth;
+
+    /** The objects drawing one character each. */
+    private final GameObject[] slots;
+
+    /** The characters currently shown, one per slot. */
+    private final char[] shown;
+
+    /** The characters being written, one per slot. */
+    private final char[] text;
+
+    /** The number shown, in units of its last decimal, or Long.MIN_VALUE before the first. */
+    private long shownScaled = Long.MIN_VALUE;
+
+    /**
+     * Constructs a new HudCounter instance showing nothing until its first value.
+     *
+     * @param glyphs      The glyphs the counter is drawn with.
+     * @param glyphHeight The height of a character on the screen, in pixels.
+     * @param label       The text before the number.
+     * @param digits      The number of digits before the decimal point. Larger values are
+     *                    shown as the largest number that fits.
+     * @param precision   The number of decimals shown.
+     * @param suffix      The text after the number.
+     */
+    public HudCounter(GlyphCache glyphs, float glyphHeight, String label, int digits,
+                      int precision, String suffix) {
+        if (digits <= 0 || precision < 0 || digits + precision > 18) {
+            throw new IllegalArgumentException("invalid digits or precision");
+        }
+        this.glyphs = glyphs;
+        this.label = label;
+        this.suffix = suffix;
+        this.precision = precision;
+        long power = 1;
+        for (int i = 0; i < precision; i++) {
+            power *= 10;
+        }
+        this.scale = power;
+        long maxWhole = 1;
+        for (int i = 0; i < digits; i++) {
+            maxWhole *= 10;
+        }
+        this.maxScaled = maxWhole * power - 1;
+        int length = label.length() + 1 + digits + (precision > 0 ? precision + 1 : 0)
+                + suffix.length();
+        slotWidth = glyphHeight * glyphs.aspectRatio();
+        Vector2 slotDimensions = new Vector2(slotWidth, glyphHeight);
+        slots = new GameObject[length];
+        for (int i = 0; i < length; i++) {
+            slots[i] = new GameObject(Vector2.ZERO, slotDimensions, null);
+            slots[i].setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+        }
+        shown = new char[length];
+        text = new char[length];
+        Arrays.fill(shown, ' ');
+        setTopLeft(Vector2.ZERO);
+    }
+
+    /**
+     * Moves the counter.
+     *
+     * @param topLeft The top-left corner of the counter, in camera coordinates.
+     */
+    public void setTopLeft(Vector2 topLeft) {
+        for (int i = 0; i < slots.length; i++) {
+            slots[i].setTopLeftCorner(new Vector2(topLeft.x() + i * slotWidth, topLeft.y()));
+        }
+    }
+
+    /**
+     * Adds the objects drawing the counter to the game objects.
+     *
+     * @param gameObjects The game objects collection.
+     * @param layer       The layer of the counter.
+     */
+    public void addTo(GameObjectCollection gameObjects, int layer) {
+        for (GameObject slot : slots) {
+            gameObjects.addGameObject(slot, layer);
+        }
+    }
+
+    /**
+     * Shows a value, unless it rounds to the number already shown.
+     *
+     * @param value The value.
+     * @return True if the shown characters were rewritten.
+     */
+    public boolean setValue(double value) {
+        long scaled = Math.round(value * scale);
+        scaled = Math.max(-maxScaled, Math.min(maxScaled, scaled));
+        if (scaled == shownScaled) {
+            return false;
+        }
+        shownScaled = scaled;
+        format(scaled);
+        for (int i = 0; i < slots.length; i++) {
+            if (text[i] != shown[i]) {
+                shown[i] = text[i];
+                slots[i].renderer().setRenderable(glyphs.glyph(text[i]));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the characters currently shown, including the blanks after the suffix.
+     *
+     * @return The shown text.
+     */
+    String shownText() {
+        return new String(shown);
+    }
+
+    /**
+     * Writes the label, a number and the suffix into the text buffer, with the number right
+     * after the label and the rest of its width left blank after the suffix.
+     *
+     * @param scaled The number, in units of its last decimal.
+     */
+    private void format(long scaled) {
+        int length = 0;
+        for (int i = 0; i < label.length(); i++) {
+            text[length++] = label.charAt(i);
+        }
+        long magnitude = Math.abs(scaled);
+        if (scaled < 0) {
+            text[length++] = '-';
+        }
+        int numberLength = precision > 0 ? precision + 2 : 1;
+        for (long rest = magnitude / scale / 10; rest > 0; rest /= 10) {
+            numberLength++;
+        }
+        for (int i = length + numberLength - 1; i >= length; i--) {
+            if (precision > 0 && i == length + numberLength - 1 - precision) {
+                text[i] = '.';
+            } else {
+                text[i] = (char) ('0' + magnitude % 10);
+                magnitude /= 10;
+            }
+        }
+        length += numberLength;
+        for (int i = 0; i < suffix.length(); i++) {
+            text[length++] = suffix.charAt(i);
+        }
+        while (length < text.length) {
+            text[length++] = ' ';
+        }
+    }
+}
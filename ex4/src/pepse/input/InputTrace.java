@@ -0,0 +1,227 @@
+package pepse.input;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The InputTrace class holds a recorded run: the world seed, the keys that were tracked and,
+ * for every tick, the frame time and a bitmask of the tracked keys held. The file starts with
+ * a header holding the seed and the key codes, followed by five bytes per tick, so an hour of
+ * play takes under a megabyte.
+ */
+public class InputTrace {
+
+    /** The first four bytes of every trace file. */
+    private static final int MAGIC = 0x50495452;
+
+    /** The version of the format written by this class. */
+    private static final int VERSION = 1;
+
+    /** The largest number of keys a one-byte mask can track. */
+    public static final int MAX_KEYS = Byte.SIZE;
+
+    /** The seed of the world the trace was recorded in. */
+    private final long seed;
+
+    /** The codes of the tracked keys, in mask bit order. */
+    private final int[] keys;
+
+    /** The frame time of every tick, in seconds. */
+    private final float[] deltaTimes;
+
+    /** The mask of the tracked keys held in every tick. */
+    private final byte[] masks;
+
+    /**
+     * Constructs a new InputTrace instance.
+     *
+     * @param seed       The seed of the world the trace was recorded in.
+     * @param keys       The codes of the tracked keys.
+     * @param deltaTimes The frame time of every tick.
+     * @param masks      The mask of the tracked keys held in every tick.
+     */
+    private InputTrace(long seed, int[] keys, float[] deltaTimes, byte[] masks) {
+        this.seed = seed;
+        this.keys = keys;
+        this.deltaTimes = deltaTimes;
+        this.masks = masks;
+    }
+
+    /**
+     * Reads a trace file. A tick cut short at the end of the file, as left by a run that did
+     * not close its recording, is dropped.
+     *
+     * @param path The path of the file.
+     * @return The trace.
+     * @throws IOException If the file cannot be read or is not a trace file.
+     */
+    public static InputTrace read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("not an input trace");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported input trace version " + version);
+            }
+            long seed = in.readLong();
+            int[] keys = new int[in.readInt()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = in.readInt();
+            }
+            return readTicks(in, seed, keys);
+        }
+    }
+
+    /**
+     * Reads the tick records until the end of the stream.
+     *
+     * @param in   The stream, positioned after the header.
+     * @param seed The seed read from the header.
+     * @param keys The key codes read from the header.
+     * @return The trace.
+     * @throws IOException If the stream cannot be read.
+     */
+    private static InputTrace readTicks(DataInputStream in, long seed, int[] keys)
+            throws IOException {
+        float[] deltaTimes = new float[1024];
+        byte[] masks = new byte[1024];
+        int ticks = 0;
+        while (true) {
+            float deltaTime;
+            byte mask;
+            try {
+                deltaTime = in.readFloat();
+                mask = in.readByte();
+            } catch (EOFException e) {
+                break;
+            }
+            if (ticks == masks.length) {
+                deltaTimes = Arrays.copyOf(deltaTimes, ticks * 2);
+                masks = Arrays.copyOf(masks, ticks * 2);
+            }
+            deltaTimes[ticks] = deltaTime;
+            masks[ticks] = mask;
+            ticks++;
+        }
+        return new InputTrace(seed, keys, Arrays.copyOf(deltaTimes, ticks),
+                Arrays.copyOf(masks, ticks));
+    }
+
+    /**
+     * Gets the seed of the world the trace was recorded in.
+     *
+     * @return The world seed.
+     */
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * Gets the codes of the tracked keys.
+     *
+     * @return The key codes, in mask bit order.
+     */
+    public int[] keys() {
+        return keys.clone();
+    }
+
+    /**
+     * Gets the number of recorded ticks.
+     *
+     * @return The number of ticks.
+     */
+    public int ticks() {
+        return masks.length;
+    }
+
+    /**
+     * Gets the frame time of a tick.
+     *
+     * @param tick The tick index.
+     * @return The frame time, in seconds.
+     */
+    public float deltaTime(int tick) {
+        return deltaTimes[tick];
+    }
+
+    /**
+     * Gets the mask of the tracked keys held in a tick.
+     *
+     * @param tick The tick index.
+     * @return The mask, bit i set if key i was held.
+     */
+    public int mask(int tick) {
+        return masks[tick] & 0xFF;
+    }
+
+    /**
+     * Writes a trace file tick by tick, so a recording survives a run that ends abruptly up to
+     * the last flush.
+     */
+    public static class Writer implements Closeable {
+
+        /** The stream the trace is written to. */
+        private final DataOutputStream out;
+
+        /**
+         * Creates the trace file and writes its header.
+         *
+         * @param path The path of the file.
+         * @param seed The seed of the world being recorded.
+         * @param keys The codes of the tracked keys, at most MAX_KEYS.
+         * @throws IOException If the file cannot be written.
+         */
+        public Writer(Path path, long seed, int[] keys) throws IOException {
+            if (keys.length > MAX_KEYS) {
+                throw new IllegalArgumentException("at most " + MAX_KEYS + " keys can be tracked");
+            }
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(seed);
+            out.writeInt(keys.length);
+            for (int key : keys) {
+                out.writeInt(key);
+            }
+        }
+
+        /**
+         * Writes one tick.
+         *
+         * @param deltaTime The frame time of the tick, in seconds.
+         * @param mask      The mask of the tracked keys held in the tick.
+         * @throws IOException If the file cannot be written.
+         */
+        public synchronized void write(float deltaTime, int mask) throws IOException {
+            out.writeFloat(deltaTime);
+            out.writeByte(mask);
+        }
+
+        /**
+         * Writes the buffered ticks to the file.
+         *
+         * @throws IOException If the file cannot be written.
+         */
+        public synchronized void flush() throws IOException {
+            out.flush();
+        }
+
+        /**
+         * Writes the buffered ticks and closes the file.
+         *
+         * @throws IOException If the file cannot be written.
+         */
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package pepse.input;
+
+import danogl.util.Vector2;
+
+/**
+ * The ProxyDefaults class supplies the values returned by proxy implementations of danogl
+ * interfaces from the methods they do not implement.
+ */
+public final class ProxyDefaults {
+
+    private ProxyDefaults() {
+    }
+
+    /**
+     * Gets the value a proxy returns from a method it does not implement.
+     *
+     * @param type The return type of the method.
+     * @return Zero or false for primitive types, the zero vector for vectors, otherwise null.
+     */
+    public static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == Vector2.class) {
+            return Vector2.ZERO;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == double.class) {
+            return 0.0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == char.class) {
+            return (char) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,229 @@
+package pepse.input;
+
+import danogl.gui.UserInputListener;
+
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The TickInput class fixes the state of the tracked keys once per tick, so that everything
+ * reading the keyboard during a tick sees the same state, and either records that state with
+ * the frame time or replays both from a trace. Replaying a trace in the same seeded world runs
+ * the same ticks with the same input, so two builds can be compared on an identical run.
+ */
+public class TickInput {
+
+    /** The system property naming a trace file to record to. */
+    public static final String RECORD_PROPERTY = "pepse.record";
+
+    /** The system property naming a trace file to replay. */
+    public static final String REPLAY_PROPERTY = "pepse.replay";
+
+    /** The keys the avatar reads, recorded and replayed. */
+    public static final int[] TRACKED_KEYS = {KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_SPACE};
+
+    /** The number of recorded ticks between flushes of the trace file. */
+    private static final int FLUSH_TICKS = 256;
+
+    /** The trace being replayed, or null when recording. */
+    private final InputTrace replay;
+
+    /** The writer of the trace being recorded, or null when replaying or after a write failed. */
+    private volatile InputTrace.Writer recorder;
+
+    /** The codes of the tracked keys, in mask bit order. */
+    private final int[] keys;
+
+    /** The live input listener, or null if there is none. */
+    private UserInputListener live = null;
+
+    /** The number of ticks begun so far. */
+    private int tick = 0;
+
+    /** The mask of the tracked keys held in the current tick. */
+    private int mask = 0;
+
+    /**
+     * Constructs a new TickInput instance.
+     *
+     * @param replay   The trace to replay, or null when recording.
+     * @param recorder The writer to record to, or null when replaying.
+     * @param keys     The codes of the tracked keys.
+     */
+    private TickInput(InputTrace replay, InputTrace.Writer recorder, int[] keys) {
+        this.replay = replay;
+        this.recorder = recorder;
+        this.keys = keys;
+    }
+
+    /**
+     * Creates a tick input recording the live keys to a trace file.
+     *
+     * @param path The path of the trace file.
+     * @param seed The seed of the world being recorded.
+     * @return The recording tick input.
+     * @throws IOException If the file cannot be written.
+     */
+    public static TickInput recording(Path path, long seed) throws IOException {
+        InputTrace.Writer writer = new InputTrace.Writer(path, seed, TRACKED_KEYS);
+        TickInput input = new TickInput(null, writer, TRACKED_KEYS);
+        Runtime.getRuntime().addShutdownHook(new Thread(input::stopRecording));
+        return input;
+    }
+
+    /**
+     * Creates a tick input replaying a trace.
+     *
+     * @param trace The trace to replay.
+     * @param seed  The seed of the world the trace is replayed in.
+     * @return The replaying tick input.
+     * @throws IllegalArgumentException If the trace was recorded in a world with another seed.
+     */
+    public static TickInput replaying(InputTrace trace, long seed) {
+        if (trace.seed() != seed) {
+            throw new IllegalArgumentException("trace was recorded with seed " + trace.seed()
+                    + ", not " + seed);
+        }
+        return new TickInput(trace, null, trace.keys());
+    }
+
+    /**
+     * Creates the tick input requested by the record and replay system properties.
+     *
+     * @param seed The seed of the world.
+     * @return The tick input, or null if neither property is set or the trace file cannot be
+     *         used, in which case the game reads the keyboard directly.
+     */
+    public static TickInput fromProperties(long seed) {
+        String replayPath = System.getProperty(REPLAY_PROPERTY);
+        String recordPath = System.getProperty(RECORD_PROPERTY);
+        try {
+            if (replayPath != null) {
+                return replaying(InputTrace.read(Paths.get(replayPath)), seed);
+            }
+            if (recordPath != null) {
+                return recording(Paths.get(recordPath), seed);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not open input trace: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Creates the input listener the game reads. Tracked keys are answered from the state of
+     * the current tick; other queries go to the live listener when there is one.
+     *
+     * @param live The live input listener, or null if there is none.
+     * @return The input listener.
+     */
+    public UserInputListener attach(UserInputListener live) {
+        this.live = live;
+        return (UserInputListener) Proxy.newProxyInstance(UserInputListener.class.getClassLoader(),
+                new Class<?>[]{UserInputListener.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("isKeyPressed")) {
+                        int bit = bitOf((Integer) args[0]);
+                        if (bit >= 0) {
+                            return (mask & (1 << bit)) != 0;
+                        }
+                    }
+                    if (this.live != null) {
+                        return method.invoke(this.live, args);
+                    }
+                    return ProxyDefaults.defaultValue(method.getReturnType());
+                });
+    }
+
+    /**
+     * Begins a tick: fixes the state of the tracked keys and gets the frame time to simulate.
+     * When recording, the live state and frame time are written to the trace; when replaying,
+     * both are read from it, and after its last tick no key is held.
+     *
+     * @param deltaTime The frame time measured for this tick, in seconds.
+     * @return The frame time to simulate, in seconds.
+     */
+    public float beginTick(float deltaTime) {
+        int index = tick++;
+        if (replay != null) {
+            if (index >= replay.ticks()) {
+                mask = 0;
+                return deltaTime;
+            }
+            mask = replay.mask(index);
+            return replay.deltaTime(index);
+        }
+        mask = liveMask();
+        if (recorder != null) {
+            try {
+                recorder.write(deltaTime, mask);
+                if (tick % FLUSH_TICKS == 0) {
+                    recorder.flush();
+                }
+            } catch (IOException e) {
+                System.err.println("Could not record input: " + e.getMessage());
+                stopRecording();
+            }
+        }
+        return deltaTime;
+    }
+
+    /**
+     * Checks whether a replay has run out of recorded ticks.
+     *
+     * @return True if replaying and every recorded tick was begun.
+     */
+    public boolean isFinished() {
+        return replay != null && tick >= replay.ticks();
+    }
+
+    /**
+     * Closes the trace being recorded, if any.
+     */
+    public void stopRecording() {
+        InputTrace.Writer writer = recorder;
+        recorder = null;
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Could not close input trace: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads the state of the tracked keys from the live listener.
+     *
+     * @return The mask of the tracked keys held.
+     */
+    private int liveMask() {
+        if (live == null) {
+            return 0;
+        }
+        int liveMask = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (live.isKeyPressed(keys[i])) {
+                liveMask |= 1 << i;
+            }
+        }
+        return liveMask;
+    }
+
+    /**
+     * Finds the mask bit of a key.
+     *
+     * @param keyCode The key code.
+     * @return The bit of the key, or -1 if the key is not tracked.
+     */
+    private int bitOf(int keyCode) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == keyCode) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
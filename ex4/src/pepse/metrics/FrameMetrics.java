@@ -0,0 +1,261 @@
+package pepse.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The FrameMetrics class records where frame time goes: the update time and allocations of
+ * every frame, the simulation steps run in each frame and their time, the objects added to and
+ * removed from each layer, and the time spent generating chunks. Measurements are accumulated over a window and handed out as a MetricsSample, after
+ * which the window starts over. Recording costs a few arithmetic operations per frame and per
+ * object, so it is always on; only reporting the samples is optional.
+ */
+public class FrameMetrics {
+
+    /** The number of nanoseconds in a second. */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /** The weight of the latest frame interval in the smoothed interval. */
+    private static final double FRAME_INTERVAL_SMOOTHING = 0.1;
+
+    /** The number of layers the live counts have room for before they grow. */
+    private static final int INITIAL_LAYERS = 16;
+
+    /** The thread bean measuring allocations, or null if the JVM does not support it. */
+    private final com.sun.management.ThreadMXBean allocationBean;
+
+    /** The layers objects were added to, in the order they were first seen. */
+    private int[] layers = new int[INITIAL_LAYERS];
+
+    /** The number of live objects added by the world to each of the layers. */
+    private int[] liveByLayer = new int[INITIAL_LAYERS];
+
+    /** The number of layers objects were added to. */
+    private int layerCount = 0;
+
+    /** The number of chunks generated in the window, possibly on other threads. */
+    private final LongAdder chunksGenerated = new LongAdder();
+
+    /** The time spent generating chunks in the window, possibly on other threads. */
+    private final LongAdder generationNanos = new LongAdder();
+
+    /** The start of the window, in nanoseconds. */
+    private long windowStart = System.nanoTime();
+
+    /** The start of the current frame, in nanoseconds. */
+    private long frameStart;
+
+    /** The bytes allocated by the game thread when the current frame started. */
+    private long frameStartAllocated;
+
+    /** The number of frames in the window. */
+    private int frames = 0;
+
+    /** The total and longest update time of the frames in the window, in nanoseconds. */
+    private long totalUpdateNanos = 0, maxUpdateNanos = 0;
+
+    /** The start of the simulation steps of the current frame, in nanoseconds. */
+    private long stepsStart;
+
+    /** The number of simulation steps run in the frames of the window. */
+    private int steps = 0;
+
+    /** The time spent in the simulation steps of the window, in nanoseconds. */
+    private long totalStepNanos = 0;
+
+    /** The bytes allocated by the game thread during the frames of the window. */
+    private long allocatedBytes = 0;
+
+    /** The number of objects added and removed in the window. */
+    private int created = 0, removed = 0;
+
+    /** The number of objects currently live in all layers. */
+    private int liveObjects = 0;
+
+    /** The start of the previous frame, or 0 before the first frame. */
+    private long previousFrameStart = 0;
+
+    /** The smoothed time between frame starts, in nanoseconds, or 0 before two frames. */
+    private double smoothedFrameNanos = 0;
+
+    /**
+     * Constructs a new FrameMetrics instance.
+     */
+    public FrameMetrics() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        allocationBean = bean instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) bean : null;
+    }
+
+    /**
+     * Marks the start of a frame update. Must be called from the game thread.
+     */
+    public void beginFrame() {
+        frameStartAllocated = allocatedBytes();
+        frameStart = System.nanoTime();
+        if (previousFrameStart != 0) {
+            long interval = frameStart - previousFrameStart;
+            smoothedFrameNanos = smoothedFrameNanos == 0 ? interval : smoothedFrameNanos
+                    + (interval - smoothedFrameNanos) * FRAME_INTERVAL_SMOOTHING;
+        }
+        previousFrameStart = frameStart;
+    }
+
+    /**
+     * Marks the end of a frame update. Must be called from the game thread.
+     */
+    public void endFrame() {
+        long elapsed = System.nanoTime() - frameStart;
+        frames++;
+        totalUpdateNanos += elapsed;
+        maxUpdateNanos = Math.max(maxUpdateNanos, elapsed);
+        allocatedBytes += allocatedBytes() - frameStartAllocated;
+    }
+
+    /**
+     * Marks the start of the simulation steps of a frame. Must be called from the game thread.
+     */
+    public void beginSteps() {
+        stepsStart = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of the simulation steps of a frame. Must be called from the game thread.
+     *
+     * @param count The number of steps run since beginSteps.
+     */
+    public void endSteps(int count) {
+        steps += count;
+        totalStepNanos += System.nanoTime() - stepsStart;
+    }
+
+    /**
+     * Records an object added to a layer. Must be called from the game thread.
+     *
+     * @param layer The layer of the object.
+     */
+    public void objectAdded(int layer) {
+        created++;
+        liveObjects++;
+        liveByLayer[layerSlot(layer)]++;
+    }
+
+    /**
+     * Records an object removed from a layer. Must be called from the game thread.
+     *
+     * @param layer The layer of the object.
+     */
+    public void objectRemoved(int layer) {
+        removed++;
+        liveObjects--;
+        liveByLayer[layerSlot(layer)]--;
+    }
+
+    /**
+     * Records the generation of a chunk. May be called from any thread.
+     *
+     * @param nanos The time the generation took, in nanoseconds.
+     */
+    public void chunkGenerated(long nanos) {
+        chunksGenerated.increment();
+        generationNanos.add(nanos);
+    }
+
+    /**
+     * Gets the number of objects currently live in all layers, without allocating.
+     *
+     * @return The number of live objects.
+     */
+    public int liveObjects() {
+        return liveObjects;
+    }
+
+    /**
+     * Gets the current frame rate, smoothed over the last frames, without allocating.
+     *
+     * @return The frames per second, or 0 before two frames.
+     */
+    public double currentFramesPerSecond() {
+        return smoothedFrameNanos == 0 ? 0 : NANOS_PER_SECOND / smoothedFrameNanos;
+    }
+
+    /**
+     * Checks whether the current window is at least the given length.
+     *
+     * @param seconds The window length, in seconds.
+     * @return True if the window is complete.
+     */
+    public boolean windowElapsed(double seconds) {
+        return System.nanoTime() - windowStart >= seconds * NANOS_PER_SECOND;
+    }
+
+    /**
+     * Summarizes the current window and starts a new one. Live object counts carry over.
+     *
+     * @return The sample of the finished window.
+     */
+    public MetricsSample sample() {
+        long now = System.nanoTime();
+        double seconds = (now - windowStart) / NANOS_PER_SECOND;
+        long chunks = chunksGenerated.sumThenReset();
+        long chunkNanos = generationNanos.sumThenReset();
+        Map<Integer, Integer> live = new TreeMap<>();
+        for (int i = 0; i < layerCount; i++) {
+            live.put(layers[i], liveByLayer[i]);
+        }
+        MetricsSample sample = new MetricsSample(seconds, frames,
+                frames == 0 ? 0 : totalUpdateNanos / (double) frames / 1e6,
+                maxUpdateNanos / 1e6, frames == 0 ? 0 : steps / (double) frames,
+                steps == 0 ? 0 : totalStepNanos / (double) steps / 1e6,
+                seconds == 0 ? 0 : allocatedBytes / seconds,
+                created, removed, (int) chunks, chunks == 0 ? 0 : chunkNanos / (double) chunks / 1e6,
+                live);
+        windowStart = now;
+        frames = 0;
+        totalUpdateNanos = 0;
+        maxUpdateNanos = 0;
+        steps = 0;
+        totalStepNanos = 0;
+        allocatedBytes = 0;
+        created = 0;
+        removed = 0;
+        return sample;
+    }
+
+    /**
+     * Finds the slot of a layer in the live counts, adding the layer if it is new. The game
+     * uses a handful of layers, so a linear scan over primitive arrays is cheaper than a map
+     * boxing the layer on every call.
+     *
+     * @param layer The layer.
+     * @return The index of the layer in the live counts.
+     */
+    private int layerSlot(int layer) {
+        for (int i = 0; i < layerCount; i++) {
+            if (layers[i] == layer) {
+                return i;
+            }
+        }
+        if (layerCount == layers.length) {
+            layers = Arrays.copyOf(layers, layerCount * 2);
+            liveByLayer = Arrays.copyOf(liveByLayer, layerCount * 2);
+        }
+        layers[layerCount] = layer;
+        return layerCount++;
+    }
+
+    /**
+     * Reads the bytes allocated so far by the calling thread.
+     *
+     * @return The allocated bytes, or 0 if the JVM cannot measure them.
+     */
+    private long allocatedBytes() {
+        if (allocationBean == null) {
+            return 0;
+        }
+        return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,62 @@
+package pepse.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The FrameWindowEvent class is the flight recorder event emitted for every metrics window,
+ * so frame time can be analysed next to GC and allocation events in a JFR recording.
+ */
+@Name("pepse.FrameWindow")
+@Label("Frame Window")
+@Category("Pepse")
+@Description("Frame time and world object counts over one metrics window")
+class FrameWindowEvent extends Event {
+
+    /** The number of frames in the window. */
+    @Label("Frames")
+    int frames;
+
+    /** The mean frame update time, in milliseconds. */
+    @Label("Mean Update (ms)")
+    double meanUpdateMillis;
+
+    /** The longest frame update time, in milliseconds. */
+    @Label("Max Update (ms)")
+    double maxUpdateMillis;
+
+    /** The mean number of simulation steps run in a frame. */
+    @Label("Steps per Frame")
+    double stepsPerFrame;
+
+    /** The mean time of one simulation step, in milliseconds. */
+    @Label("Mean Step (ms)")
+    double meanStepMillis;
+
+    /** The bytes allocated per second by the game thread. */
+    @Label("Allocation Rate (B/s)")
+    double allocatedBytesPerSecond;
+
+    /** The number of world objects added in the window. */
+    @Label("Objects Created")
+    int created;
+
+    /** The number of world objects removed in the window. */
+    @Label("Objects Removed")
+    int removed;
+
+    /** The number of chunks generated in the window. */
+    @Label("Chunks Generated")
+    int chunksGenerated;
+
+    /** The mean time spent generating a chunk, in milliseconds. */
+    @Label("Mean Chunk Generation (ms)")
+    double meanChunkMillis;
+
+    /** The number of live world objects. */
+    @Label("Live Objects")
+    int liveObjects;
+}
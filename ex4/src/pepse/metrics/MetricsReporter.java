@@ -0,0 +1,151 @@
+package pepse.metrics;
+
+import danogl.gui.rendering.TextRenderable;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The MetricsReporter class publishes metrics samples: every sample is emitted as a flight
+ * recorder event, and optionally shown in an on-screen overlay and appended to a CSV file.
+ */
+public class MetricsReporter {
+
+    /** The header line of the CSV file. */
+    private static final String CSV_HEADER = "seconds,frames,fps,mean_update_ms,max_update_ms,"
+            + "steps_per_frame,mean_step_ms,alloc_mb_s,created,removed,chunks,mean_chunk_ms,live_objects,live_by_layer";
+
+    /** The number of bytes in a megabyte. */
+    private static final double BYTES_PER_MB = 1024 * 1024;
+
+    /** The text of the overlay, or null if there is no overlay. */
+    private final TextRenderable overlayText;
+
+    /** The writer of the CSV file, or null if there is no CSV file. */
+    private BufferedWriter csv;
+
+    /**
+     * Constructs a new MetricsReporter instance. The CSV file is closed when the JVM shuts
+     * down.
+     *
+     * @param overlay The text renderable of the overlay, or null for no overlay.
+     * @param csvPath The path of the CSV file, or null for no CSV file.
+     */
+    public MetricsReporter(TextRenderable overlay, Path csvPath) {
+        this.overlayText = overlay;
+        if (csvPath != null) {
+            try {
+                csv = Files.newBufferedWriter(csvPath);
+                csv.write(CSV_HEADER);
+                csv.newLine();
+                csv.flush();
+                Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+            } catch (IOException e) {
+                System.err.println("Could not open " + csvPath + ": " + e.getMessage());
+                csv = null;
+            }
+        }
+    }
+
+    /**
+     * Publishes a sample.
+     *
+     * @param sample The sample to publish.
+     */
+    public void report(MetricsSample sample) {
+        emitEvent(sample);
+        if (overlayText != null) {
+            overlayText.setString(String.format(Locale.ROOT,
+                    "%.0f fps  upd %.1f/%.1f ms  steps %.1f x %.2f ms  %.1f MB/s  live %d  +%d -%d"
+                            + "  chunks %d (%.1f ms)",
+                    sample.framesPerSecond(), sample.meanUpdateMillis, sample.maxUpdateMillis,
+                    sample.stepsPerFrame, sample.meanStepMillis,
+                    sample.allocatedBytesPerSecond / BYTES_PER_MB, sample.liveObjects(),
+                    sample.created, sample.removed, sample.chunksGenerated,
+                    sample.meanChunkMillis));
+        }
+        writeCsv(sample);
+    }
+
+    /**
+     * Closes the CSV file, if there is one. Samples reported afterwards are not written to it.
+     */
+    public synchronized void close() {
+        if (csv == null) {
+            return;
+        }
+        try {
+            csv.close();
+        } catch (IOException e) {
+            System.err.println("Could not close metrics: " + e.getMessage());
+        }
+        csv = null;
+    }
+
+    /**
+     * Emits a sample as a flight recorder event, if the event is being recorded.
+     *
+     * @param sample The sample to emit.
+     */
+    private static void emitEvent(MetricsSample sample) {
+        FrameWindowEvent event = new FrameWindowEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        event.frames = sample.frames;
+        event.meanUpdateMillis = sample.meanUpdateMillis;
+        event.maxUpdateMillis = sample.maxUpdateMillis;
+        event.stepsPerFrame = sample.stepsPerFrame;
+        event.meanStepMillis = sample.meanStepMillis;
+        event.allocatedBytesPerSecond = sample.allocatedBytesPerSecond;
+        event.created = sample.created;
+        event.removed = sample.removed;
+        event.chunksGenerated = sample.chunksGenerated;
+        event.meanChunkMillis = sample.meanChunkMillis;
+        event.liveObjects = sample.liveObjects();
+        event.commit();
+    }
+
+    /**
+     * Appends a sample to the CSV file and flushes it, closing the file if writing fails.
+     * Synchronized with close, which may run on the shutdown thread.
+     *
+     * @param sample The sample to write.
+     */
+    private synchronized void writeCsv(MetricsSample sample) {
+        if (csv == null) {
+            return;
+        }
+        StringBuilder layers = new StringBuilder();
+        for (Map.Entry<Integer, Integer> entry : sample.liveByLayer.entrySet()) {
+            if (layers.length() > 0) {
+                layers.append(';');
+            }
+            layers.append(entry.getKey()).append(':').append(entry.getValue());
+        }
+        try {
+            csv.write(String.format(Locale.ROOT,
+                    "%.3f,%d,%.1f,%.3f,%.3f,%.2f,%.3f,%.3f,%d,%d,%d,%.3f,%d,%s",
+                    sample.seconds, sample.frames, sample.framesPerSecond(),
+                    sample.meanUpdateMillis, sample.maxUpdateMillis, sample.stepsPerFrame,
+                    sample.meanStepMillis,
+                    sample.allocatedBytesPerSecond / BYTES_PER_MB, sample.created,
+                    sample.removed, sample.chunksGenerated, sample.meanChunkMillis,
+                    sample.liveObjects(), layers));
+            csv.newLine();
+            csv.flush();
+        } catch (IOException e) {
+            System.err.println("Could not write metrics: " + e.getMessage());
+            try {
+                csv.close();
+            } catch (IOException ignored) {
+                // the file is abandoned either way
+            }
+            csv = null;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package pepse.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The MetricsSample class holds the measurements of one window of frames.
+ */
+public class MetricsSample {
+
+    /** The length of the window, in seconds. */
+    public final double seconds;
+
+    /** The number of frames in the window. */
+    public final int frames;
+
+    /** The mean and longest frame update time, in milliseconds. */
+    public final double meanUpdateMillis, maxUpdateMillis;
+
+    /** The mean number of simulation steps run in a frame. */
+    public final double stepsPerFrame;
+
+    /** The mean time of one simulation step, in milliseconds. */
+    public final double meanStepMillis;
+
+    /** The bytes allocated per second by the game thread during frame updates. */
+    public final double allocatedBytesPerSecond;
+
+    /** The number of world objects added and removed in the window. */
+    public final int created, removed;
+
+    /** The number of chunks generated in the window. */
+    public final int chunksGenerated;
+
+    /** The mean time spent generating a chunk, in milliseconds. */
+    public final double meanChunkMillis;
+
+    /** The number of live world objects at the end of the window, keyed by layer. */
+    public final Map<Integer, Integer> liveByLayer;
+
+    /**
+     * Constructs a new MetricsSample instance.
+     *
+     * @param seconds                 The length of the window, in seconds.
+     * @param frames                  The number of frames in the window.
+     * @param meanUpdateMillis        The mean frame update time, in milliseconds.
+     * @param maxUpdateMillis         The longest frame update time, in milliseconds.
+     * @param stepsPerFrame           The mean number of simulation steps run in a frame.
+     * @param meanStepMillis          The mean time of one simulation step, in milliseconds.
+     * @param allocatedBytesPerSecond The bytes allocated per second by the game thread.
+     * @param created                 The number of world objects added in the window.
+     * @param removed                 The number of world objects removed in the window.
+     * @param chunksGenerated         The number of chunks generated in the window.
+     * @param meanChunkMillis         The mean time spent generating a chunk, in milliseconds.
+     * @param liveByLayer             The number of live world objects, keyed by layer.
+     */
+    MetricsSample(double seconds, int frames, double meanUpdateMillis, double maxUpdateMillis,
+                  double stepsPerFrame, double meanStepMillis, double allocatedBytesPerSecond, int created, int removed, int chunksGenerated,
+                  double meanChunkMillis, Map<Integer, Integer> liveByLayer) {
+        this.seconds = seconds;
+        this.frames = frames;
+        this.meanUpdateMillis = meanUpdateMillis;
+        this.maxUpdateMillis = maxUpdateMillis;
+        this.stepsPerFrame = stepsPerFrame;
+        this.meanStepMillis = meanStepMillis;
+        this.allocatedBytesPerSecond = allocatedBytesPerSecond;
+        this.created = created;
+        this.removed = removed;
+        this.chunksGenerated = chunksGenerated;
+        this.meanChunkMillis = meanChunkMillis;
+        this.liveByLayer = Collections.unmodifiableMap(liveByLayer);
+    }
+
+    /**
+     * Gets the frame rate of the window.
+     *
+     * @return The number of frames per second.
+     */
+    public double framesPerSecond() {
+        return seconds == 0 ? 0 : frames / seconds;
+    }
+
+    /**
+     * Gets the number of live world objects across all layers.
+     *
+     * @return The number of live world objects.
+     */
+    public int liveObjects() {
+        int total = 0;
+        for (int count : liveByLayer.values()) {
+            total += count;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,136 @@
+package utils;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Bulk copies between primitive arrays and byte buffers, advancing the buffer position.
+ * Used to encode plain world data into mapped files without a per-element loop. Reads check
+ * the stored counts against the bytes left before allocating, so a corrupt count fails with a
+ * BufferUnderflowException instead of allocating a huge array.
+ */
+public final class BufferArrays {
+
+    private BufferArrays() {
+    }
+
+    /**
+     * Writes a float array at the buffer position.
+     *
+     * @param buffer The buffer to write to.
+     * @param values The values to write.
+     */
+    public static void putFloats(ByteBuffer buffer, float[] values) {
+        buffer.asFloatBuffer().put(values);
+        buffer.position(buffer.position() + Float.BYTES * values.length);
+    }
+
+    /**
+     * Writes an int array at the buffer position.
+     *
+     * @param buffer The buffer to write to.
+     * @param values The values to write.
+     */
+    public static void putInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + Integer.BYTES * values.length);
+    }
+
+    /**
+     * Reads a float array from the buffer position.
+     *
+     * @param buffer The buffer to read from.
+     * @param count The number of values to read.
+     * @return The values read.
+     */
+    public static float[] getFloats(ByteBuffer buffer, int count) {
+        require(buffer, count, Float.BYTES);
+        float[] values = new float[count];
+        buffer.asFloatBuffer().get(values);
+        buffer.position(buffer.position() + Float.BYTES * count);
+        return values;
+    }
+
+    /**
+     * Reads an int array from the buffer position.
+     *
+     * @param buffer The buffer to read from.
+     * @param count The number of values to read.
+     * @return The values read.
+     */
+    public static int[] getInts(ByteBuffer buffer, int count) {
+        require(buffer, count, Integer.BYTES);
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + Integer.BYTES * count);
+        return values;
+    }
+
+    /**
+     * Reads a byte array from the buffer position.
+     *
+     * @param buffer The buffer to read from.
+     * @param count The number of values to read.
+     * @return The values read.
+     */
+    public static byte[] getBytes(ByteBuffer buffer, int count) {
+        require(buffer, count, Byte.BYTES);
+        byte[] values = new byte[count];
+        buffer.get(values);
+        return values;
+    }
+
+    /**
+     * Reads palette shade indices from the buffer position, and checks that every one is in
+     * the palette.
+     *
+     * @param buffer The buffer to read from.
+     * @param count The number of shades to read.
+     * @return The shades read.
+     * @throws IllegalArgumentException If a shade is outside [0, ColorSupplier.PALETTE_SIZE).
+     */
+    public static byte[] getShades(ByteBuffer buffer, int count) {
+        byte[] shades = getBytes(buffer, count);
+        for (byte shade : shades) {
+            if (shade < 0 || shade >= ColorSupplier.PALETTE_SIZE) {
+                throw new IllegalArgumentException("corrupt shade " + shade);
+            }
+        }
+        return shades;
+    }
+
+    /**
+     * Reads the start offsets of a run of groups, e.g. the first leaf of every tree, and checks
+     * that they start at 0 and never decrease.
+     *
+     * @param buffer The buffer to read from.
+     * @param count The number of offsets to read.
+     * @return The offsets read.
+     * @throws IllegalArgumentException If the offsets are not a valid run.
+     */
+    public static int[] getOffsets(ByteBuffer buffer, int count) {
+        int[] offsets = getInts(buffer, count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            if (offsets[i] < previous || (i == 0 && offsets[i] != 0)) {
+                throw new IllegalArgumentException("corrupt offsets");
+            }
+            previous = offsets[i];
+        }
+        return offsets;
+    }
+
+    /**
+     * Checks that the buffer holds a number of values.
+     *
+     * @param buffer The buffer to read from.
+     * @param count The number of values.
+     * @param size The size of a value, in bytes.
+     * @throws BufferUnderflowException If the count is negative or too large.
+     */
+    private static void require(ByteBuffer buffer, int count, int size) {
+        if (count < 0 || (long) count * size > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+    }
+}
@@ -1,16 +1,34 @@
 package utils;
 
+import danogl.gui.rendering.OvalRenderable;
+import danogl.gui.rendering.RectangleRenderable;
+import danogl.gui.rendering.Renderable;
+
 import java.awt.*;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Provides procedurally-generated colors around a pivot.
+ * Also provides shared renderables: every base color has a fixed palette of PALETTE_SIZE
+ * approximated shades, and all objects drawn with the same shade share one renderable.
  * @author Dan Nirel
  */
 public final class ColorSupplier {
     private static final int DEFAULT_COLOR_DELTA = 10;
     private final static Random random = new Random();
 
+    /** The number of shades in the palette of every base color. */
+    public static final int PALETTE_SIZE = 32;
+
+    /** The maximal number of base colors kept in each palette cache. */
+    private static final int MAX_BASE_COLORS = 64;
+
+    private static final Map<Color, Renderable[]> rectanglePalettes = new ConcurrentHashMap<>();
+    private static final Map<Color, Renderable[]> ovalPalettes = new ConcurrentHashMap<>();
+
     /**
      * Returns a color similar to baseColor, with a default delta.
      *
@@ -36,6 +54,36 @@ public final class ColorSupplier {
                 randomChannelInRange(baseColor.getBlue()-colorDelta, baseColor.getBlue()+colorDelta));
     }
 
+    /**
+     * Returns a color similar to baseColor, with a default delta, derived only from the given
+     * hash. The same hash always gives the same color.
+     *
+     * @param baseColor A color that we wish to approximate.
+     * @param hash A hash, e.g. from WorldHash, choosing the color.
+     * @return A color similar to baseColor.
+     */
+    public static Color hashedColor(Color baseColor, long hash) {
+        return hashedColor(baseColor, DEFAULT_COLOR_DELTA, hash);
+    }
+
+    /**
+     * Returns a color similar to baseColor, with a difference of at most colorDelta, derived
+     * only from the given hash. The same hash always gives the same color.
+     *
+     * @param baseColor A color that we wish to approximate.
+     * @param colorDelta The maximal difference (per channel) between the sampled color and the base color.
+     * @param hash A hash, e.g. from WorldHash, choosing the color.
+     * @return A color similar to baseColor.
+     */
+    public static Color hashedColor(Color baseColor, int colorDelta, long hash) {
+        return new Color(
+                hashedChannelInRange(baseColor.getRed()-colorDelta, baseColor.getRed()+colorDelta, hash),
+                hashedChannelInRange(baseColor.getGreen()-colorDelta, baseColor.getGreen()+colorDelta,
+                        hash >>> 16),
+                hashedChannelInRange(baseColor.getBlue()-colorDelta, baseColor.getBlue()+colorDelta,
+                        hash >>> 32));
+    }
+
     /**
      * This method generates a random value for a color channel within the given range [min, max].
      *
@@ -47,4 +95,89 @@ public final class ColorSupplier {
         int channel = random.nextInt(max-min+1) + min;
         return Math.min(255, Math.max(channel, 0));
     }
+
+    /**
+     * This method picks a value for a color channel within the given range [min, max] from the
+     * low 16 bits of a hash.
+     *
+     * @param min The lower bound of the given range.
+     * @param max The upper bound of the given range.
+     * @param bits The hash bits choosing the value.
+     * @return A number in the range [min, max], clipped to [0,255].
+     */
+    private static int hashedChannelInRange(int min, int max, long bits) {
+        int channel = (int) ((bits & 0xFFFF) % (max-min+1)) + min;
+        return Math.min(255, Math.max(channel, 0));
+    }
+
+    /**
+     * Returns the shade index chosen by a hash. The same hash always gives the same shade.
+     *
+     * @param hash A hash, e.g. from WorldHash, choosing the shade.
+     * @return A shade index in [0, PALETTE_SIZE).
+     */
+    public static int shadeOf(long hash) {
+        return (int) ((hash >>> 1) % PALETTE_SIZE);
+    }
+
+    /**
+     * Returns the shared rectangle renderable of a shade of baseColor.
+     *
+     * @param baseColor A color that we wish to approximate.
+     * @param shade The shade index, in [0, PALETTE_SIZE).
+     * @return A rectangle renderable with a color similar to baseColor.
+     */
+    public static Renderable rectangle(Color baseColor, int shade) {
+        return paletteRenderable(rectanglePalettes, baseColor, shade, RectangleRenderable::new);
+    }
+
+    /**
+     * Returns the shared oval renderable of a shade of baseColor.
+     *
+     * @param baseColor A color that we wish to approximate.
+     * @param shade The shade index, in [0, PALETTE_SIZE).
+     * @return An oval renderable with a color similar to baseColor.
+     */
+    public static Renderable oval(Color baseColor, int shade) {
+        return paletteRenderable(ovalPalettes, baseColor, shade, OvalRenderable::new);
+    }
+
+    /**
+     * Returns a renderable from the palette of a base color, creating it on first use.
+     * Once a cache holds MAX_BASE_COLORS palettes, other base colors get unshared renderables.
+     *
+     * @param palettes The palette cache of the renderable kind.
+     * @param baseColor The base color of the palette.
+     * @param shade The shade index.
+     * @param factory Creates a renderable of the wanted kind from a color.
+     * @return The renderable of the shade.
+     */
+    private static Renderable paletteRenderable(Map<Color, Renderable[]> palettes, Color baseColor,
+                                                int shade, Function<Color, Renderable> factory) {
+        Renderable[] palette = palettes.get(baseColor);
+        if (palette == null) {
+            if (palettes.size() >= MAX_BASE_COLORS) {
+                return factory.apply(shadeColor(baseColor, shade));
+            }
+            palette = palettes.computeIfAbsent(baseColor, color -> new Renderable[PALETTE_SIZE]);
+        }
+        Renderable renderable = palette[shade];
+        if (renderable == null) {
+            renderable = factory.apply(shadeColor(baseColor, shade));
+            palette[shade] = renderable;
+        }
+        return renderable;
+    }
+
+    /**
+     * Returns the color of a shade of baseColor. Every shade of a base color is fixed, and is
+     * the color of the palette renderables of that shade.
+     *
+     * @param baseColor A color that we wish to approximate.
+     * @param shade The shade index.
+     * @return A color similar to baseColor.
+     */
+    public static Color shadeColor(Color baseColor, int shade) {
+        return hashedColor(baseColor, WorldHash.hash(baseColor.getRGB(), shade, 0, 0));
+    }
 }
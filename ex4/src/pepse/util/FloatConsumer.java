@@ -0,0 +1,17 @@
+package utils;
+
+/**
+ * Represents an operation that accepts a single float argument and returns no result.
+ * This is the primitive specialization of {@code Consumer<Float>}, so calling it does not box
+ * its argument.
+ */
+@FunctionalInterface
+public interface FloatConsumer {
+
+    /**
+     * Performs this operation on the given argument.
+     *
+     * @param value The input argument.
+     */
+    void accept(float value);
+}
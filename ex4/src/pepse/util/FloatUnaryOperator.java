@@ -0,0 +1,18 @@
+package utils;
+
+/**
+ * Represents an operation on a single float operand that produces a float result.
+ * This is the primitive specialization of {@code Function<Float, Float>}, so calling it
+ * does not box its argument or its result.
+ */
+@FunctionalInterface
+public interface FloatUnaryOperator {
+
+    /**
+     * Applies this operator to the given operand.
+     *
+     * @param operand The operand.
+     * @return The operator result.
+     */
+    float applyAsFloat(float operand);
+}
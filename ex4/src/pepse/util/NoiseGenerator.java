@@ -8,6 +8,7 @@ public class NoiseGenerator {
     private int[] p;
     private int[] permutation;
     private double startPoint;
+    private double[] octaves;
 
     /**
      * The constructor of the NoiseGenerator class.
@@ -57,6 +58,17 @@ public class NoiseGenerator {
             p[256 + i] = p[i] = permutation[i];
         }
 
+        // Precompute the octave schedule used by noise, from startPoint down to 1.
+        int count = 0;
+        for (double currentPoint = startPoint; currentPoint >= 1; currentPoint /= 2.0) {
+            count++;
+        }
+        this.octaves = new double[count];
+        double currentPoint = startPoint;
+        for (int i = 0; i < count; i++) {
+            octaves[i] = currentPoint;
+            currentPoint /= 2.0;
+        }
     }
 
     /**
@@ -86,6 +98,83 @@ public class NoiseGenerator {
     }
 
 
+    /**
+     * Bulk version of noise for evenly spaced points. Generates the noise of
+     * x0, x0 + step, ..., x0 + (count - 1) * step into out, with the same values noise returns
+     * for each point (rounded to float).
+     *
+     * @param x0 the first x to receive noise for.
+     * @param step the distance between consecutive points.
+     * @param count the number of points.
+     * @param factor describes how large the noise should be, as in noise.
+     * @param out receives the noise of point i at index i. Must hold at least count values.
+     */
+    public void noiseRange(double x0, double step, int count, double factor, float[] out) {
+        // noise always samples y = 0 and z = 0, so everything depending on them is constant.
+        double y = seed;
+        int Y = (int) Math.floor(y) & 255;
+        y -= Math.floor(y);
+        double v = fade(y);
+
+        // Each point is summed in a double before rounding, so no temporary array is needed.
+        for (int i = 0; i < count; i++) {
+            double x = x0 + i * step;
+            double value = 0.0;
+            for (double currentPoint : octaves) {
+                value += smoothNoise1D(x / currentPoint, Y, y, v) * currentPoint;
+            }
+            out[i] = (float) (value * factor / startPoint);
+        }
+    }
+
+    /**
+     * Same as noiseRange with a float output, but keeps the full double precision of noise.
+     *
+     * @param x0 the first x to receive noise for.
+     * @param step the distance between consecutive points.
+     * @param count the number of points.
+     * @param factor describes how large the noise should be, as in noise.
+     * @param out receives the noise of point i at index i. Must hold at least count values.
+     */
+    public void noiseRange(double x0, double step, int count, double factor, double[] out) {
+        // noise always samples y = 0 and z = 0, so everything depending on them is constant.
+        double y = seed;
+        int Y = (int) Math.floor(y) & 255;
+        y -= Math.floor(y);
+        double v = fade(y);
+
+        for (int i = 0; i < count; i++) {
+            out[i] = 0.0;
+        }
+        for (double currentPoint : octaves) {
+            for (int i = 0; i < count; i++) {
+                out[i] += smoothNoise1D((x0 + i * step) / currentPoint, Y, y, v) * currentPoint;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = out[i] * factor / startPoint;
+        }
+    }
+
+    // smoothNoise specialized to z = 0, with the y terms precomputed by the caller.
+    private double smoothNoise1D(double x, int Y, double y, double v) {
+        x += this.seed;
+        x += this.seed;
+
+        int X = (int) Math.floor(x) & 255;
+        x -= Math.floor(x);
+        double u = fade(x);
+
+        int A = p[X] + Y;
+        int B = p[X + 1] + Y;
+
+        // With z = 0 the fade weight of the back face is 0, so only the front face counts.
+        return lerp(v, lerp(u, grad(p[p[A]], x, y, 0),
+                        grad(p[p[B]], x - 1, y, 0)),
+                lerp(u, grad(p[p[A + 1]], x, y - 1, 0),
+                        grad(p[p[B + 1]], x - 1, y - 1, 0)));
+    }
+
     private double smoothNoise(double x, double y, double z) {
         // Offset each coordinate by the seed value
         x += this.seed;
@@ -0,0 +1,52 @@
+package utils;
+
+/**
+ * Stateless, seed-driven hashing used to make procedural decisions reproducible.
+ * The same seed and coordinates always give the same value, so a region of the world can be
+ * regenerated identically instead of being stored.
+ */
+public final class WorldHash {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final double UNIT = 1.0 / (1L << 53);
+
+    private WorldHash() {
+    }
+
+    /**
+     * Hashes a seed together with three coordinates.
+     *
+     * @param seed The world seed.
+     * @param a The first coordinate, e.g. a column index.
+     * @param b The second coordinate, e.g. a cell index.
+     * @param salt Distinguishes independent decisions made for the same coordinates.
+     * @return A well-mixed 64-bit hash.
+     */
+    public static long hash(long seed, long a, long b, long salt) {
+        long h = mix(seed + GOLDEN_GAMMA);
+        h = mix(h ^ (a + GOLDEN_GAMMA));
+        h = mix(h ^ (b + 2 * GOLDEN_GAMMA));
+        return mix(h ^ (salt + 3 * GOLDEN_GAMMA));
+    }
+
+    /**
+     * Maps a hash to a double uniformly distributed in [0, 1).
+     *
+     * @param hash A hash returned by hash.
+     * @return A value in [0, 1).
+     */
+    public static double toUnit(long hash) {
+        return (hash >>> 11) * UNIT;
+    }
+
+    /**
+     * The splitmix64 finalizer.
+     *
+     * @param z The value to mix.
+     * @return The mixed value.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
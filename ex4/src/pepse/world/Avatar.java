@@ -1,18 +1,23 @@
 package pepse.world;
 
 import danogl.GameObject;
-import danogl.collisions.Collision;
-import danogl.components.ScheduledTask;
 import danogl.components.movement_schemes.PlatformerMovementScheme;
 import danogl.gui.ImageReader;
 import danogl.gui.UserInputListener;
 import danogl.gui.rendering.AnimationRenderable;
+import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
 import pepse.world.trees.Flora;
+import pepse.world.trees.Fruit;
+import pepse.world.trees.FruitGrid;
+import utils.FloatConsumer;
 
 import java.awt.event.KeyEvent;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 /**
@@ -23,17 +28,18 @@ import java.util.function.Consumer;
 }
 public class Avatar extends GameObject {
 
-    // Constants for energy depletion rates and other game parameters
-    private static final float ENERGY_DOWN_RUN = (float) 0.5;
+    // Constants for energy depletion rates and other game parameters. Running and idling change
+    // the energy per second, so the rates hold for any simulation step; they were tuned as 0.5
+    // and 1 per update at 42 updates per second, which is 21 and 42 per second. Jumping and
+    // eating change it once per jump or fruit.
+    private static final float ENERGY_DOWN_RUN = 21f;
     private static final float ENERGY_DOWN_JUMP = 10.f;
     private static final int INIT_VELOCITY_SIZE = 600;
     private static final int FRUIT_ENERGY = 10;
     private static final int WAIT_TIME_OPAQ_FRUIT = 30;
-    private static final int UNACTIVATE_OPAQ_FLAG = 0;
-    private static final int ACTIVATE_OPAQ_FLAG = 1;
     private static final int RUN_X_VEL = 210;
     private static final int JUMP_Y_VEL = 400;
-    private static final int IDLE_ENERGY = 1;
+    private static final float IDLE_ENERGY = 42f;
     private static final int MAX_ENERGY = 100;
     public static final int SIZE_OF_AVATAR = 40;
     private static final double TIME_BETWEEN_CLIPS = 0.5;
@@ -68,26 +74,74 @@ public class Avatar extends GameObject {
     private final PlatformerMovementScheme movementScheme;
     private final Consumer<Boolean> isJumping;
     private final UserInputListener inputListener;
-    private Consumer<Float> updateEnergy;
+    private FloatConsumer updateEnergy;
+
+    // Spatial index of the fruits, and a reusable list for the fruits touched each frame
+    private final FruitGrid fruitGrid;
+    private final List<Fruit> touchedFruits = new ArrayList<>();
 
     // Avatar's energy level and time
     private float energy = MAX_ENERGY;
+    private float reportedEnergy = Float.NaN;
     private Action curAction =Action.IDLE;
     private Action last_action = null;
 
     /**
-     * Constructs a new Avatar instance.
+     * Constructs a new Avatar instance whose images are read separately through an image reader.
      *
      * @param pos           Initial position of the avatar.
      * @param inputListener User input listener for controlling the avatar.
      * @param imageReader   Image reader for loading avatar's images.
      * @param updateEnergy  Consumer function to update energy.
      * @param isJumping     Consumer function to indicate if the avatar is jumping.
+     * @param fruitGrid     Spatial index of the fruits the avatar can eat.
      */
     public Avatar(Vector2 pos, UserInputListener inputListener, ImageReader imageReader,
-                  Consumer<Float> updateEnergy, Consumer<Boolean> isJumping) {
-        super(pos, new Vector2(SIZE_OF_AVATAR, SIZE_OF_AVATAR),
-                imageReader.readImage(PHOTO_FILE_NAMES_IDLE[0], true));
+                  FloatConsumer updateEnergy, Consumer<Boolean> isJumping, FruitGrid fruitGrid) {
+        this(pos, inputListener, imageReader.readImage(PHOTO_FILE_NAMES_IDLE[0], true),
+                new AnimationRenderable(PHOTO_FILE_NAMES_IDLE, imageReader, true,
+                        TIME_BETWEEN_CLIPS),
+                new AnimationRenderable(PHOTO_PATH_FOR_JUMP, imageReader, true, TIME_BETWEEN_CLIPS),
+                new AnimationRenderable(PHOTO_PATH_FOR_RUN, imageReader, true, TIME_BETWEEN_CLIPS),
+                updateEnergy, isJumping, fruitGrid);
+    }
+
+    /**
+     * Constructs a new Avatar instance whose animations are shared through a sprite atlas.
+     *
+     * @param pos           Initial position of the avatar.
+     * @param inputListener User input listener for controlling the avatar.
+     * @param sprites       The atlas holding the avatar's images, as loaded by preloadSprites.
+     * @param updateEnergy  Consumer function to update energy.
+     * @param isJumping     Consumer function to indicate if the avatar is jumping.
+     * @param fruitGrid     Spatial index of the fruits the avatar can eat.
+     */
+    public Avatar(Vector2 pos, UserInputListener inputListener, SpriteAtlas sprites,
+                  FloatConsumer updateEnergy, Consumer<Boolean> isJumping, FruitGrid fruitGrid) {
+        this(pos, inputListener, sprites.frame(PHOTO_FILE_NAMES_IDLE[0]),
+                sprites.animation(PHOTO_FILE_NAMES_IDLE, TIME_BETWEEN_CLIPS),
+                sprites.animation(PHOTO_PATH_FOR_JUMP, TIME_BETWEEN_CLIPS),
+                sprites.animation(PHOTO_PATH_FOR_RUN, TIME_BETWEEN_CLIPS),
+                updateEnergy, isJumping, fruitGrid);
+    }
+
+    /**
+     * Constructs a new Avatar instance from its renderables.
+     *
+     * @param pos           Initial position of the avatar.
+     * @param inputListener User input listener for controlling the avatar.
+     * @param still         The renderable shown before the first update.
+     * @param idle          The idle animation.
+     * @param jump          The jump animation.
+     * @param run           The run animation.
+     * @param updateEnergy  Consumer function to update energy.
+     * @param isJumping     Consumer function to indicate if the avatar is jumping.
+     * @param fruitGrid     Spatial index of the fruits the avatar can eat.
+     */
+    private Avatar(Vector2 pos, UserInputListener inputListener, Renderable still,
+                   AnimationRenderable idle, AnimationRenderable jump, AnimationRenderable run,
+                   FloatConsumer updateEnergy, Consumer<Boolean> isJumping, FruitGrid fruitGrid) {
+        super(pos, new Vector2(SIZE_OF_AVATAR, SIZE_OF_AVATAR), still);
         physics().preventIntersectionsFromDirection(Vector2.ZERO);
         transform().setAccelerationY(GRAVITY);
         this.inputListener = inputListener;
@@ -96,76 +150,77 @@ public class Avatar extends GameObject {
         movementScheme.setVelocitySize(INIT_VELOCITY_SIZE);
         this.updateEnergy = updateEnergy;
         this.isJumping = isJumping;
-        // Initialize animation renderables
-        animationRenderableIdle = new
-                AnimationRenderable(PHOTO_FILE_NAMES_IDLE, imageReader, true, TIME_BETWEEN_CLIPS);
-        animationRenderableJump = new
-                AnimationRenderable(PHOTO_PATH_FOR_JUMP, imageReader, true, TIME_BETWEEN_CLIPS);
-        animationRenderableRun = new
-                AnimationRenderable(PHOTO_PATH_FOR_RUN, imageReader, true, TIME_BETWEEN_CLIPS);
+        this.fruitGrid = fruitGrid;
+        this.animationRenderableIdle = idle;
+        this.animationRenderableJump = jump;
+        this.animationRenderableRun = run;
     }
 
     /**
-     * Updates the avatar's state.
+     * Starts loading every image of the avatar into one sprite atlas in the background.
+     * Avatars built from the same atlas share their animations.
      *
-     * @param deltaTime Time elapsed since the last frame.
+     * @return A future completing with the atlas.
      */
-    @Override
-    public void update(float deltaTime) {
-        super.update(deltaTime);
-        updateMovement();
-        updateEnergy.accept(energy);
+    public static CompletableFuture<SpriteAtlas> preloadSprites() {
+        List<String> paths = new ArrayList<>();
+        paths.addAll(List.of(PHOTO_FILE_NAMES_IDLE));
+        paths.addAll(List.of(PHOTO_PATH_FOR_JUMP));
+        paths.addAll(List.of(PHOTO_PATH_FOR_RUN));
+        return SpriteAtlas.loadAsync(paths.toArray(new String[0]));
     }
 
     /**
-     * Handles collision events.
+     * Updates the avatar's state.
      *
-     * @param other     The other GameObject involved in the collision.
-     * @param collision The collision information.
+     * @param deltaTime Time elapsed since the last frame.
      */
     @Override
-    public void onCollisionEnter(GameObject other, Collision collision) {
-        super.onCollisionEnter(other, collision);
-        if (other.getTag().equals(Flora.FRUIT_TAG)) {
-            updateEnergy(FRUIT_ENERGY);
-            changeTag(other, FRUIT_UNAVAILABLE);
-            setOpaq(other, UNACTIVATE_OPAQ_FLAG);
-            ScheduledTask scheduledTask = new ScheduledTask(this,
-                    WAIT_TIME_OPAQ_FRUIT,
-                    false, () -> {
-                changeTag(other, Flora.FRUIT_TAG);
-                setOpaq(other, ACTIVATE_OPAQ_FLAG);
-            });
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        updateMovement(deltaTime);
+        eatTouchedFruits();
+        // Report the energy only when it changed; the display redraws only when the shown
+        // percentage changes
+        if (energy != reportedEnergy) {
+            reportedEnergy = energy;
+            updateEnergy.accept(energy);
         }
     }
 
     /**
-     * Changes the tag of a GameObject.
-     *
-     * @param other   The GameObject whose tag to change.
-     * @param newTag  The new tag.
+     * Eats the available fruits the avatar overlaps, found through the fruit grid instead of
+     * the collision pass.
      */
-    private static void changeTag(GameObject other, String newTag) {
-
-        other.setTag(newTag);
+    private void eatTouchedFruits() {
+        touchedFruits.clear();
+        fruitGrid.collectOverlapping(getTopLeftCorner(), getDimensions(), touchedFruits);
+        for (int i = 0; i < touchedFruits.size(); i++) {
+            Fruit fruit = touchedFruits.get(i);
+            if (fruit.getTag().equals(Flora.FRUIT_TAG)) {
+                eatFruit(fruit);
+            }
+        }
     }
 
     /**
-     * Sets the opacity of a GameObject.
+     * Eats a fruit, hiding it until it grows back.
      *
-     * @param other  The GameObject whose opacity to set.
-     * @param ok     The opacity value.
+     * @param fruit The fruit to eat.
      */
-    private static void setOpaq(GameObject other, int ok) {
-        other.renderer().setOpaqueness(ok);
+    private void eatFruit(Fruit fruit) {
+        updateEnergy(FRUIT_ENERGY);
+        fruit.eat(WAIT_TIME_OPAQ_FRUIT);
     }
 
     /**
      * Updates the avatar's movement based on user input.
+     *
+     * @param deltaTime Time elapsed since the last update, in seconds.
      */
-    private void updateMovement() {
+    private void updateMovement(float deltaTime) {
         float yVel = 0;
-        boolean isRun = moveRightAndLeft();
+        boolean isRun = moveRightAndLeft(deltaTime);
         boolean isJump =(inputListener.isKeyPressed(KeyEvent.VK_SPACE));
         if (! isRun  && getVelocity().y() == 0 ) {
             boolean canAct = false;
@@ -183,7 +238,7 @@ public class Avatar extends GameObject {
             if ( !canAct ){
                 curAction = Action.IDLE;
                 Map<String, Integer> b=new HashMap<>();
-                updateEnergy(IDLE_ENERGY);
+                updateEnergy(IDLE_ENERGY * deltaTime);
                 change_photo_idle(false);
             }
         }
@@ -192,10 +247,10 @@ public class Avatar extends GameObject {
         }
     }
 
-    private boolean moveRightAndLeft() {
+    private boolean moveRightAndLeft(float deltaTime) {
         float xVel = 0;
         if (inputListener.isKeyPressed(KeyEvent.VK_LEFT)) {
-            boolean canAct = updateEnergyDown(ENERGY_DOWN_RUN);
+            boolean canAct = updateEnergyDown(ENERGY_DOWN_RUN * deltaTime);
             if (canAct) {
                 curAction = Action.LEFT;
                 xVel -= RUN_X_VEL;
@@ -203,7 +258,7 @@ public class Avatar extends GameObject {
             }
         }
         else if (inputListener.isKeyPressed(KeyEvent.VK_RIGHT)) {
-            boolean canAct = updateEnergyDown(ENERGY_DOWN_RUN);
+            boolean canAct = updateEnergyDown(ENERGY_DOWN_RUN * deltaTime);
             if (canAct) {
                 curAction = Action.RIGHT;
                 xVel += RUN_X_VEL;
@@ -0,0 +1,73 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.util.Vector2;
+
+/**
+ * The CameraFocus class is the invisible object the camera follows. It trails a target object
+ * with a deadzone: while the target moves within the deadzone around the focus, the focus
+ * stays put, and once the target leaves it the focus glides after it instead of jumping.
+ * The focus must be added to a layer that collides with nothing.
+ */
+public class CameraFocus extends GameObject {
+
+    /** The object followed. */
+    private final GameObject target;
+
+    /** Half the width and height of the deadzone. */
+    private final Vector2 deadzone;
+
+    /** How fast the focus closes the distance to where it should be, per second. */
+    private final float smoothing;
+
+    /**
+     * Constructs a new CameraFocus instance centered on its target.
+     *
+     * @param target    The object followed.
+     * @param deadzone  Half the width and height of the deadzone, in pixels.
+     * @param smoothing How fast the focus closes the distance to where it should be, per
+     *                  second. Larger values follow more tightly.
+     */
+    public CameraFocus(GameObject target, Vector2 deadzone, float smoothing) {
+        super(Vector2.ZERO, Vector2.ZERO, null);
+        this.target = target;
+        this.deadzone = deadzone;
+        this.smoothing = smoothing;
+        setCenter(target.getCenter());
+    }
+
+    /**
+     * Moves the focus toward the nearest point that keeps the target inside the deadzone.
+     *
+     * @param deltaTime The time passed since the last update, in seconds.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        Vector2 center = getCenter();
+        Vector2 targetCenter = target.getCenter();
+        float desiredX = follow(center.x(), targetCenter.x(), deadzone.x());
+        float desiredY = follow(center.y(), targetCenter.y(), deadzone.y());
+        float blend = 1 - (float) Math.exp(-smoothing * deltaTime);
+        setCenter(new Vector2(center.x() + (desiredX - center.x()) * blend,
+                center.y() + (desiredY - center.y()) * blend));
+    }
+
+    /**
+     * Finds where the focus should be on one axis.
+     *
+     * @param focus  The focus coordinate.
+     * @param target The target coordinate.
+     * @param half   Half the size of the deadzone on this axis.
+     * @return The closest coordinate to the focus that keeps the target inside the deadzone.
+     */
+    private static float follow(float focus, float target, float half) {
+        if (target > focus + half) {
+            return target - half;
+        }
+        if (target < focus - half) {
+            return target + half;
+        }
+        return focus;
+    }
+}
@@ -0,0 +1,102 @@
+package pepse.world;
+
+import pepse.world.trees.FloraData;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The ChunkData class holds the generated data of a chunk: its terrain and its flora. It holds
+ * no game objects, so it can be kept in the world store while the chunk is unloaded.
+ */
+public class ChunkData {
+
+    /** The terrain of the chunk. */
+    private final TerrainData terrain;
+
+    /** The flora of the chunk. */
+    private final FloraData flora;
+
+    /**
+     * Constructs a new ChunkData instance.
+     *
+     * @param terrain The terrain of the chunk.
+     * @param flora   The flora of the chunk.
+     */
+    public ChunkData(TerrainData terrain, FloraData flora) {
+        this.terrain = terrain;
+        this.flora = flora;
+    }
+
+    /**
+     * Gets the terrain of the chunk.
+     *
+     * @return The terrain data.
+     */
+    public TerrainData terrain() {
+        return terrain;
+    }
+
+    /**
+     * Gets the flora of the chunk.
+     *
+     * @return The flora data.
+     */
+    public FloraData flora() {
+        return flora;
+    }
+
+    /**
+     * Checks whether the data changed since it was generated, read or last saved.
+     *
+     * @return True if the data was modified.
+     */
+    public boolean isModified() {
+        return flora.isModified();
+    }
+
+    /**
+     * Marks the data as saved.
+     */
+    public void clearModified() {
+        flora.clearModified();
+    }
+
+    /**
+     * Reads chunk data written by writeTo.
+     *
+     * @param buffer The buffer to read from, positioned at the start of the data.
+     * @return The chunk data.
+     */
+    public static ChunkData readFrom(ByteBuffer buffer) {
+        TerrainData terrain = TerrainData.readFrom(buffer);
+        return new ChunkData(terrain, FloraData.readFrom(buffer));
+    }
+
+    /**
+     * Writes this data at the buffer position.
+     *
+     * @param buffer The buffer to write to, with at least encodedSize bytes remaining.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        terrain.writeTo(buffer);
+        flora.writeTo(buffer);
+    }
+
+    /**
+     * Gets the number of bytes writeTo writes.
+     *
+     * @return The encoded size of this data.
+     */
+    public int encodedSize() {
+        return terrain.encodedSize() + flora.encodedSize();
+    }
+
+    /**
+     * Estimates the heap size of this data.
+     *
+     * @return The approximate number of bytes held by the arrays of this data.
+     */
+    public long memoryBytes() {
+        return terrain.memoryBytes() + flora.memoryBytes();
+    }
+}
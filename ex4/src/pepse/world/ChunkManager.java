@@ -0,0 +1,498 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.gui.rendering.ImageRenderable;
+import pepse.PepseGameManager;
+import pepse.metrics.FrameMetrics;
+import pepse.world.trees.Flora;
+import pepse.world.trees.FloraData;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The ChunkManager class streams the world in fixed-width chunks around the camera.
+ * Chunks that enter the load radius for the first time are generated as plain data on a
+ * background executor and kept in the world store; the stored data is then turned into game
+ * objects on the game thread, a few chunks per frame. Chunks that leave the radius are removed
+ * from the game objects, but their data stays in the store, and their blocks, leaves and
+ * fruits are returned to the pools of the terrain and flora. The world is endless while the
+ * number of live objects stays bounded.
+ * The ground of each chunk is baked into one texture on the executor while the chunk is
+ * prepared, and drawn by a single object over the invisible ground blocks. The textures are
+ * cached by chunk index and dropped when their chunk is unloaded.
+ * With culling enabled, the objects of loaded chunks that are out of view are also taken out
+ * of the game objects, and put back when they come near the view again, so the engine only
+ * updates and renders what can be seen.
+ */
+public class ChunkManager {
+
+    /** The default time the game thread may spend creating chunk objects per frame. */
+    public static final long DEFAULT_FRAME_BUDGET_NANOS = 4_000_000;
+
+    /** The loaded chunks, keyed by chunk index. */
+    private final Map<Integer, Chunk> chunks = new HashMap<>();
+
+    /** The chunks being generated in the background, keyed by chunk index. */
+    private final Map<Integer, CompletableFuture<PreparedChunk>> pending = new HashMap<>();
+
+    /** The baked terrain textures of the loaded chunks, keyed by chunk index. */
+    private final Map<Integer, ImageRenderable> terrainTextures = new HashMap<>();
+
+    /** The executor generating chunk data. */
+    private final Executor executor;
+
+    /** The time the game thread may spend creating chunk objects per frame. */
+    private final long frameBudgetNanos;
+
+    /** The terrain used to generate ground blocks. */
+    private final Terrain terrain;
+
+    /** The flora used to generate trees, leaves and fruits. */
+    private final Flora flora;
+
+    /** The store keeping the data of every generated chunk. */
+    private final WorldStore store;
+
+    /** The collection the chunk objects are added to and removed from. */
+    private final GameObjectCollection gameObjects;
+
+    /** The width of a chunk, in pixels. */
+    private final int chunkWidth;
+
+    /** The number of chunks kept loaded on each side of the camera's chunk. */
+    private final int loadRadius;
+
+    /** The metrics recording added and removed objects and chunk generation times. */
+    private FrameMetrics metrics = new FrameMetrics();
+
+    /** The objects of unloaded chunks, recycled on the next update. */
+    private final List<GameObject> toRecycle = new ArrayList<>();
+
+    /** Half the width of the camera view, or infinity if culling is disabled. */
+    private float cullHalfWidth = Float.POSITIVE_INFINITY;
+
+    /** The distance beyond the view within which a culled chunk is put back. */
+    private float cullMargin = 0;
+
+    /** The chunk index the camera was in on the last update. */
+    private Integer centerChunk = null;
+
+    /**
+     * Constructs a new ChunkManager instance generating chunks on the common fork-join pool.
+     *
+     * @param terrain     The terrain used to generate ground blocks.
+     * @param flora       The flora used to generate trees, leaves and fruits.
+     * @param store       The store keeping the data of every generated chunk.
+     * @param gameObjects The collection the chunk objects are added to.
+     * @param chunkWidth  The width of a chunk, in pixels. Must be a multiple of Block.SIZE.
+     * @param loadRadius  The number of chunks kept loaded on each side of the camera's chunk.
+     */
+    public ChunkManager(Terrain terrain, Flora flora, WorldStore store,
+                        GameObjectCollection gameObjects, int chunkWidth, int loadRadius) {
+        this(terrain, flora, store, gameObjects, chunkWidth, loadRadius, ForkJoinPool.commonPool(),
+                DEFAULT_FRAME_BUDGET_NANOS);
+    }
+
+    /**
+     * Constructs a new ChunkManager instance.
+     *
+     * @param terrain          The terrain used to generate ground blocks.
+     * @param flora            The flora used to generate trees, leaves and fruits.
+     * @param store            The store keeping the data of every generated chunk.
+     * @param gameObjects      The collection the chunk objects are added to.
+     * @param chunkWidth       The width of a chunk, in pixels. Must be a multiple of Block.SIZE.
+     * @param loadRadius       The number of chunks kept loaded on each side of the camera's chunk.
+     * @param executor         The executor generating chunk data.
+     * @param frameBudgetNanos The time the game thread may spend creating chunk objects per
+     *                         frame. At least one chunk is created per frame when one is ready.
+     */
+    public ChunkManager(Terrain terrain, Flora flora, WorldStore store,
+                        GameObjectCollection gameObjects, int chunkWidth, int loadRadius,
+                        Executor executor, long frameBudgetNanos) {
+        if (chunkWidth <= 0 || chunkWidth % Block.SIZE != 0) {
+            throw new IllegalArgumentException("chunk width must be a positive multiple of "
+                    + Block.SIZE);
+        }
+        this.terrain = terrain;
+        this.flora = flora;
+        this.store = store;
+        this.gameObjects = gameObjects;
+        this.chunkWidth = chunkWidth;
+        this.loadRadius = loadRadius;
+        this.executor = executor;
+        this.frameBudgetNanos = frameBudgetNanos;
+    }
+
+    /**
+     * Requests the chunks within the radius of the given x-coordinate, unloads the rest, and
+     * creates the objects of generated chunks until the frame budget is used up.
+     *
+     * @param cameraX The x-coordinate of the camera center, in world coordinates.
+     */
+    public void update(float cameraX) {
+        recycleUnloaded();
+        cull(cameraX);
+        int current = chunkIndexOf(cameraX);
+        if (centerChunk == null || centerChunk != current) {
+            centerChunk = current;
+            unloadFarChunks(current);
+            for (int index = current - loadRadius; index <= current + loadRadius; index++) {
+                if (chunks.containsKey(index) || pending.containsKey(index)) {
+                    continue;
+                }
+                int chunkIndex = index;
+                ChunkData data = store.get(index);
+                if (data != null) {
+                    pending.put(index, CompletableFuture.supplyAsync(
+                            () -> prepare(data), executor));
+                } else {
+                    pending.put(index, CompletableFuture.supplyAsync(
+                            () -> prepare(generateChunk(chunkIndex)), executor));
+                }
+            }
+        }
+        materializeReadyChunks();
+    }
+
+    /**
+     * Loads the chunks within the radius of the given x-coordinate on the calling thread,
+     * so that they exist as soon as this method returns. Used before the first frame.
+     *
+     * @param cameraX The x-coordinate of the camera center, in world coordinates.
+     */
+    public void loadNow(float cameraX) {
+        recycleUnloaded();
+        int current = chunkIndexOf(cameraX);
+        centerChunk = current;
+        unloadFarChunks(current);
+        for (int index = current - loadRadius; index <= current + loadRadius; index++) {
+            CompletableFuture<PreparedChunk> future = pending.remove(index);
+            if (future != null) {
+                future.cancel(false);
+            }
+            if (!chunks.containsKey(index)) {
+                chunks.put(index, materialize(index, prepare(loadData(index))));
+            }
+        }
+    }
+
+    /**
+     * Enables culling of the chunks out of view. A chunk is put back once it comes within the
+     * margin of the view, and culled again only once it is twice the margin away, so a chunk
+     * on the edge is not added and removed on alternate frames.
+     *
+     * @param halfWidth Half the width of the camera view, in pixels.
+     * @param margin    The distance beyond the view within which chunks are put back.
+     */
+    public void enableCulling(float halfWidth, float margin) {
+        this.cullHalfWidth = halfWidth;
+        this.cullMargin = margin;
+    }
+
+    /**
+     * Sets the metrics recording added and removed objects and chunk generation times.
+     *
+     * @param metrics The metrics to record to.
+     */
+    public void setMetrics(FrameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Gets the number of currently loaded chunks.
+     *
+     * @return The number of loaded chunks.
+     */
+    public int loadedChunks() {
+        return chunks.size();
+    }
+
+    /**
+     * Calculates the index of the chunk containing the given x-coordinate.
+     *
+     * @param x The x-coordinate.
+     * @return The chunk index.
+     */
+    private int chunkIndexOf(float x) {
+        return Math.floorDiv((int) Math.floor(x), chunkWidth);
+    }
+
+    /**
+     * Removes every chunk that is farther than the load radius from the given chunk.
+     *
+     * @param current The chunk the camera is in.
+     */
+    private void unloadFarChunks(int current) {
+        Iterator<Map.Entry<Integer, CompletableFuture<PreparedChunk>>> pendingIterator =
+                pending.entrySet().iterator();
+        while (pendingIterator.hasNext()) {
+            Map.Entry<Integer, CompletableFuture<PreparedChunk>> entry = pendingIterator.next();
+            if (Math.abs(entry.getKey() - current) > loadRadius) {
+                entry.getValue().cancel(false);
+                pendingIterator.remove();
+            }
+        }
+        Iterator<Map.Entry<Integer, Chunk>> iterator = chunks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Chunk> entry = iterator.next();
+            if (Math.abs(entry.getKey() - current) > loadRadius) {
+                flora.release(entry.getValue().objects);
+                toRecycle.addAll(entry.getValue().objects);
+                for (int layer : entry.getValue().layers) {
+                    metrics.objectRemoved(layer);
+                }
+                entry.getValue().removeFrom(gameObjects);
+                int minX = entry.getKey() * chunkWidth;
+                terrain.evictRange(minX, minX + chunkWidth);
+                terrainTextures.remove(entry.getKey());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Culls the loaded chunks out of view and puts back the ones near it.
+     *
+     * @param cameraX The x-coordinate of the camera center, in world coordinates.
+     */
+    private void cull(float cameraX) {
+        if (cullHalfWidth == Float.POSITIVE_INFINITY) {
+            return;
+        }
+        for (Map.Entry<Integer, Chunk> entry : chunks.entrySet()) {
+            Chunk chunk = entry.getValue();
+            float minX = entry.getKey() * (float) chunkWidth;
+            float distance = Math.max(Math.max(minX - cameraX, cameraX - minX - chunkWidth), 0)
+                    - cullHalfWidth;
+            if (chunk.attached && distance > 2 * cullMargin) {
+                chunk.detach(gameObjects);
+            } else if (!chunk.attached && distance <= cullMargin) {
+                chunk.attach(gameObjects);
+            }
+        }
+    }
+
+    /**
+     * Returns the objects of the chunks unloaded on an earlier update to the pools. Recycling
+     * waits a call so that an object is never added back to the game objects in the same frame
+     * it was removed from them.
+     */
+    private void recycleUnloaded() {
+        terrain.recycle(toRecycle);
+        flora.recycle(toRecycle);
+        toRecycle.clear();
+    }
+
+    /**
+     * Creates the objects of generated chunks on the game thread, stopping once the frame
+     * budget is used up. A chunk whose generation failed on the executor is reported and
+     * loaded again on the game thread, so a failure does not leave a hole in the world.
+     */
+    private void materializeReadyChunks() {
+        long deadline = System.nanoTime() + frameBudgetNanos;
+        Iterator<Map.Entry<Integer, CompletableFuture<PreparedChunk>>> iterator =
+                pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, CompletableFuture<PreparedChunk>> entry = iterator.next();
+            if (entry.getValue().isDone()) {
+                iterator.remove();
+                PreparedChunk prepared;
+                try {
+                    prepared = entry.getValue().join();
+                } catch (CompletionException e) {
+                    System.err.println("Could not generate chunk " + entry.getKey()
+                            + ", loading it again: " + e.getCause());
+                    prepared = prepare(loadData(entry.getKey()));
+                }
+                store.put(entry.getKey(), prepared.data);
+                chunks.put(entry.getKey(), materialize(entry.getKey(), prepared));
+                if (System.nanoTime() >= deadline) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the data of a chunk from the store, generating and storing it if the store does not
+     * hold it. Runs on the game thread.
+     *
+     * @param index The chunk index.
+     * @return The chunk data.
+     */
+    private ChunkData loadData(int index) {
+        ChunkData data = store.get(index);
+        if (data == null) {
+            data = generateChunk(index);
+            store.put(index, data);
+        }
+        return data;
+    }
+
+    /**
+     * Generates the terrain and flora of a chunk as plain data. Runs on the executor.
+     *
+     * @param index The chunk index.
+     * @return The generated chunk data.
+     */
+    private ChunkData generateChunk(int index) {
+        long start = System.nanoTime();
+        int minX = index * chunkWidth;
+        int maxX = minX + chunkWidth;
+        TerrainData terrainData = terrain.generateData(minX, maxX);
+        FloraData floraData = flora.generateData(minX + PepseGameManager.MIN_X_TREES,
+                maxX + PepseGameManager.MIN_X_TREES, terrainData::heightAt);
+        metrics.chunkGenerated(System.nanoTime() - start);
+        return new ChunkData(terrainData, floraData);
+    }
+
+    /**
+     * Bakes the terrain texture of a chunk. Runs on the executor, or on the game thread when
+     * loading synchronously.
+     *
+     * @param data The chunk data.
+     * @return The chunk data together with its baked terrain image.
+     */
+    private PreparedChunk prepare(ChunkData data) {
+        return new PreparedChunk(data, terrain.bakeTexture(data.terrain()));
+    }
+
+    /**
+     * Creates the objects of a chunk from its data and adds them to the game objects.
+     *
+     * @param index    The chunk index.
+     * @param prepared The chunk data and its baked terrain image.
+     * @return The loaded chunk.
+     */
+    private Chunk materialize(int index, PreparedChunk prepared) {
+        ChunkData data = prepared.data;
+        Chunk chunk = new Chunk();
+        ImageRenderable texture = terrainTextures.computeIfAbsent(index,
+                key -> new ImageRenderable(prepared.terrainImage));
+        GameObject ground = terrain.createTexture(data.terrain(), texture, prepared.terrainImage);
+        chunk.add(gameObjects, ground, PepseGameManager.TERRAIN_LAYER);
+        for (Block block : terrain.createFromData(data.terrain())) {
+            chunk.add(gameObjects, block, Layer.STATIC_OBJECTS);
+        }
+        List<List<GameObject>> floraObjects = flora.createFromData(data.flora());
+        for (GameObject leaf : floraObjects.get(0)) {
+            chunk.add(gameObjects, leaf, PepseGameManager.LAYER_LEAF);
+        }
+        for (GameObject fruit : floraObjects.get(1)) {
+            chunk.add(gameObjects, fruit, PepseGameManager.FRUIT_LAYER);
+        }
+        for (GameObject tree : floraObjects.get(2)) {
+            chunk.add(gameObjects, tree, Layer.STATIC_OBJECTS);
+        }
+        for (GameObject wind : floraObjects.get(3)) {
+            chunk.add(gameObjects, wind, PepseGameManager.WIND_LAYER);
+        }
+        for (int layer : chunk.layers) {
+            metrics.objectAdded(layer);
+        }
+        return chunk;
+    }
+
+    /**
+     * The data of a chunk ready to be materialized, with its terrain texture already baked.
+     */
+    private static class PreparedChunk {
+
+        /** The chunk data. */
+        private final ChunkData data;
+
+        /** The baked image of the chunk's terrain. */
+        private final BufferedImage terrainImage;
+
+        /**
+         * Constructs a new PreparedChunk instance.
+         *
+         * @param data         The chunk data.
+         * @param terrainImage The baked image of the chunk's terrain.
+         */
+        private PreparedChunk(ChunkData data, BufferedImage terrainImage) {
+            this.data = data;
+            this.terrainImage = terrainImage;
+        }
+    }
+
+    /**
+     * The objects belonging to a single loaded chunk, together with their layers.
+     * All of them are culled together; the regrowth of culled fruits keeps running on the
+     * world event wheel.
+     */
+    private static class Chunk {
+
+        /** Whether the objects of the chunk are in the game objects. */
+        private boolean attached = true;
+
+        /** The objects of the chunk. */
+        private final List<GameObject> objects = new ArrayList<>();
+
+        /** The layer of each object, in the same order as the objects. */
+        private final List<Integer> layers = new ArrayList<>();
+
+        /**
+         * Adds an object to the chunk and to the game objects.
+         *
+         * @param gameObjects The game objects collection.
+         * @param object      The object to add.
+         * @param layer       The layer of the object.
+         */
+        private void add(GameObjectCollection gameObjects, GameObject object, int layer) {
+            gameObjects.addGameObject(object, layer);
+            objects.add(object);
+            layers.add(layer);
+        }
+
+        /**
+         * Removes all objects of the chunk from the game objects.
+         *
+         * @param gameObjects The game objects collection.
+         */
+        private void removeFrom(GameObjectCollection gameObjects) {
+            if (attached) {
+                for (int i = 0; i < objects.size(); i++) {
+                    gameObjects.removeGameObject(objects.get(i), layers.get(i));
+                }
+            }
+            objects.clear();
+            layers.clear();
+        }
+
+        /**
+         * Takes the objects of the chunk out of the game objects.
+         *
+         * @param gameObjects The game objects collection.
+         */
+        private void detach(GameObjectCollection gameObjects) {
+            for (int i = 0; i < objects.size(); i++) {
+                gameObjects.removeGameObject(objects.get(i), layers.get(i));
+            }
+            attached = false;
+        }
+
+        /**
+         * Puts the objects of the chunk back in the game objects.
+         *
+         * @param gameObjects The game objects collection.
+         */
+        private void attach(GameObjectCollection gameObjects) {
+            for (int i = 0; i < objects.size(); i++) {
+                gameObjects.addGameObject(objects.get(i), layers.get(i));
+            }
+            attached = true;
+        }
+    }
+}
@@ -1,21 +1,20 @@
 package pepse.world;
 
-import danogl.GameObject;
-import danogl.gui.rendering.TextRenderable;
-import danogl.util.Vector2;
+import pepse.hud.GlyphCache;
+import pepse.hud.HudCounter;
 
 /**
  * The Energy class represents the energy level in the game.
- * It extends the GameObject class provided by the danogl library.
+ * It is shown as a HUD counter, which only redraws when the shown percentage changes.
  */
-public class Energy extends GameObject {
+public class Energy extends HudCounter {
 
     /** The initial energy level. */
     private static final int INITIAL_ENERGY = 100;
     public static final String PORCANTAGE = "%";
 
-    /** The text renderable for displaying the energy level. */
-    private TextRenderable textRenderable;
+    /** The number of digits of the largest energy level. */
+    private static final int DIGITS = 3;
 
     /** The current energy level. */
     private float energy;
@@ -23,25 +22,31 @@ public class Energy extends GameObject {
     /**
      * Constructs a new Energy instance.
      *
-     * @param topLeft        The position of the energy display, in window coordinates (pixels).
-     *                       Note that (0,0) is the top-left corner of the window.
-     * @param dimensions     The width and height of the energy display in window coordinates.
-     * @param textRenderable The text renderable representing the energy display.
+     * @param glyphs      The glyphs the energy level is drawn with.
+     * @param glyphHeight The height of a character on the screen, in pixels.
+     * @param precision   The number of decimals shown.
      */
-    public Energy(Vector2 topLeft, Vector2 dimensions, TextRenderable textRenderable) {
-        super(topLeft, dimensions, textRenderable);
-        this.energy = INITIAL_ENERGY;
-        this.textRenderable = textRenderable;
-        this.textRenderable.setString(energy + PORCANTAGE);
+    public Energy(GlyphCache glyphs, float glyphHeight, int precision) {
+        super(glyphs, glyphHeight, "", DIGITS, precision, PORCANTAGE);
+        updateEnergy(INITIAL_ENERGY);
     }
 
     /**
-     * Updates the energy level and refreshes the text display.
+     * Updates the energy level and refreshes the display if the shown value changed.
      *
      * @param value The new energy value.
      */
     public void updateEnergy(float value) {
         this.energy = value;
-        this.textRenderable.setString(energy + PORCANTAGE);
+        setValue(energy);
+    }
+
+    /**
+     * Gets the current energy level.
+     *
+     * @return The energy level.
+     */
+    public float getEnergy() {
+        return energy;
     }
 }
@@ -0,0 +1,174 @@
+package pepse.world;
+
+/**
+ * The HeightCache class is an open-addressed map from terrain column indices to ground
+ * heights. Keys and values are kept in primitive arrays, so lookups and insertions do not
+ * allocate once the table has grown to the size of the loaded world.
+ */
+class HeightCache {
+
+    /** The initial number of slots in the table. Must be a power of two. */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /** The maximal ratio of used slots before the table grows. */
+    private static final float LOAD_FACTOR = 0.5f;
+
+    /** The multiplier used to spread column indices over the table. */
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    /** The column index stored in each slot. */
+    private int[] keys;
+
+    /** The ground height stored in each slot. */
+    private float[] values;
+
+    /** Whether each slot is in use. */
+    private boolean[] used;
+
+    /** The number of used slots. */
+    private int size;
+
+    /**
+     * Constructs a new, empty HeightCache instance.
+     */
+    HeightCache() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Gets the cached height of a column.
+     *
+     * @param column The column index.
+     * @return The cached height, or NaN if the column is not cached.
+     */
+    float get(int column) {
+        int slot = find(column);
+        return used[slot] ? values[slot] : Float.NaN;
+    }
+
+    /**
+     * Caches the height of a column, replacing any previous value.
+     *
+     * @param column The column index.
+     * @param height The ground height of the column.
+     */
+    void put(int column, float height) {
+        int slot = find(column);
+        if (!used[slot]) {
+            if (size + 1 > keys.length * LOAD_FACTOR) {
+                grow();
+                slot = find(column);
+            }
+            used[slot] = true;
+            keys[slot] = column;
+            size++;
+        }
+        values[slot] = height;
+    }
+
+    /**
+     * Removes the heights of all columns in the given range.
+     *
+     * @param minColumn The first column to remove.
+     * @param maxColumn The column after the last one to remove.
+     */
+    void removeRange(int minColumn, int maxColumn) {
+        for (int column = minColumn; column < maxColumn; column++) {
+            remove(column);
+        }
+    }
+
+    /**
+     * Gets the number of cached columns.
+     *
+     * @return The number of cached columns.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes the height of a single column, shifting back the entries that follow it
+     * so that linear probing still finds them.
+     *
+     * @param column The column index.
+     */
+    private void remove(int column) {
+        int slot = find(column);
+        if (!used[slot]) {
+            return;
+        }
+        int mask = keys.length - 1;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (!used[next]) {
+                break;
+            }
+            int home = slotOf(keys[next]);
+            // Move the entry back if its home slot is not between the hole and its position
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+        }
+        used[slot] = false;
+        size--;
+    }
+
+    /**
+     * Finds the slot holding the given column, or the empty slot where it would be put.
+     *
+     * @param column The column index.
+     * @return The slot index.
+     */
+    private int find(int column) {
+        int mask = keys.length - 1;
+        int slot = slotOf(column);
+        while (used[slot] && keys[slot] != column) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Calculates the home slot of a column.
+     *
+     * @param column The column index.
+     * @return The home slot index.
+     */
+    private int slotOf(int column) {
+        int hash = column * HASH_MULTIPLIER;
+        return (hash ^ (hash >>> 16)) & (keys.length - 1);
+    }
+
+    /**
+     * Doubles the table size and reinserts the used slots.
+     */
+    private void grow() {
+        int[] oldKeys = keys;
+        float[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = find(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Allocates empty arrays for the given number of slots.
+     *
+     * @param capacity The number of slots.
+     */
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new float[capacity];
+        used = new boolean[capacity];
+    }
+}
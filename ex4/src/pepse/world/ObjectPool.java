@@ -0,0 +1,55 @@
+package pepse.world;
+
+import java.util.ArrayDeque;
+import java.util.function.Supplier;
+
+/**
+ * The ObjectPool class keeps released objects of one type so they can be handed out again
+ * instead of being allocated. The owner of a pool is responsible for resetting an object before
+ * releasing it and for configuring it after obtaining it.
+ *
+ * @param <T> The type of the pooled objects.
+ */
+public class ObjectPool<T> {
+
+    /** The released objects waiting to be reused. */
+    private final ArrayDeque<T> free = new ArrayDeque<>();
+
+    /** Creates a new object when the pool is empty. */
+    private final Supplier<T> factory;
+
+    /** The largest number of released objects kept; further ones are left to the collector. */
+    private final int maxSize;
+
+    /**
+     * Constructs a new ObjectPool instance.
+     *
+     * @param factory Creates a new object when the pool is empty.
+     * @param maxSize The largest number of released objects kept.
+     */
+    public ObjectPool(Supplier<T> factory, int maxSize) {
+        this.factory = factory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Hands out a released object, or a new one if none is left.
+     *
+     * @return An object to configure and use.
+     */
+    public T obtain() {
+        T object = free.pollLast();
+        return object == null ? factory.get() : object;
+    }
+
+    /**
+     * Returns an object to the pool. The object must already be reset and no longer in use.
+     *
+     * @param object The object to return.
+     */
+    public void release(T object) {
+        if (free.size() < maxSize) {
+            free.addLast(object);
+        }
+    }
+}
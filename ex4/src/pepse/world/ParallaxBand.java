@@ -0,0 +1,188 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.components.CoordinateSpace;
+import danogl.gui.rendering.ImageRenderable;
+import danogl.util.Vector2;
+import utils.WorldHash;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * The ParallaxBand class creates background bands, such as distant hills or clouds, that
+ * scroll slower than the world to give it depth. A band is an image one window wide that wraps
+ * around seamlessly, drawn by two tiles in camera coordinates that are shifted as the camera
+ * moves. The number of background objects therefore stays the same however far the avatar
+ * walks.
+ */
+public class ParallaxBand {
+
+    /** The number of tiles drawing a band, enough to cover the window at any shift. */
+    private static final int TILES = 2;
+
+    /** The sine waves summed into the hill outline: their number of periods per band width. */
+    private static final int[] HILL_WAVES = {1, 2, 3, 5, 8};
+
+    /** The salts of the hill and cloud hashes. */
+    private static final long HILL_SALT = 11, CLOUD_SALT = 12;
+
+    private ParallaxBand() {
+    }
+
+    /**
+     * Creates the tiles of a band.
+     *
+     * @param windowDimensions The dimensions of the game window.
+     * @param image            The image of the band, one window wide and wrapping around.
+     * @param top              The y-coordinate of the band's top, in camera coordinates.
+     * @param factor           How fast the band scrolls relative to the world, between 0 for
+     *                         fixed and 1 for moving with the world.
+     * @param cameraX          Supplies the x-coordinate of the camera center.
+     * @return The tiles of the band, to be added to one background layer.
+     */
+    public static List<GameObject> create(Vector2 windowDimensions, BufferedImage image,
+                                          float top, float factor, DoubleSupplier cameraX) {
+        ImageRenderable renderable = new ImageRenderable(image);
+        Vector2 dimensions = new Vector2(windowDimensions.x(), image.getHeight());
+        List<GameObject> tiles = new ArrayList<>(TILES);
+        for (int i = 0; i < TILES; i++) {
+            tiles.add(new Tile(new Vector2(i * dimensions.x(), top), dimensions, renderable,
+                    i, factor, cameraX));
+        }
+        return tiles;
+    }
+
+    /**
+     * Draws a wrapping outline of distant hills.
+     *
+     * @param width  The width of the image, in pixels.
+     * @param height The height of the image, in pixels.
+     * @param seed   The seed of the outline.
+     * @param color  The color of the hills.
+     * @return The image.
+     */
+    public static BufferedImage hills(int width, int height, long seed, Color color) {
+        double[] amplitudes = new double[HILL_WAVES.length];
+        double[] phases = new double[HILL_WAVES.length];
+        double total = 0;
+        for (int k = 0; k < HILL_WAVES.length; k++) {
+            amplitudes[k] = 1.0 / HILL_WAVES[k];
+            phases[k] = 2 * Math.PI * unit(seed, k, 0, HILL_SALT);
+            total += amplitudes[k];
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int rgb = color.getRGB();
+        for (int x = 0; x < width; x++) {
+            double wave = 0;
+            for (int k = 0; k < HILL_WAVES.length; k++) {
+                wave += amplitudes[k]
+                        * Math.sin(2 * Math.PI * HILL_WAVES[k] * x / width + phases[k]);
+            }
+            int top = (int) (height * (0.5 - 0.5 * wave / total));
+            for (int y = Math.max(top, 0); y < height; y++) {
+                image.setRGB(x, y, rgb);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Draws wrapping clouds.
+     *
+     * @param width  The width of the image, in pixels.
+     * @param height The height of the image, in pixels.
+     * @param seed   The seed of the cloud layout.
+     * @param clouds The number of clouds.
+     * @param color  The color of the clouds.
+     * @return The image.
+     */
+    public static BufferedImage clouds(int width, int height, long seed, int clouds, Color color) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setColor(color);
+        for (int i = 0; i < clouds; i++) {
+            int cloudWidth = (int) (height * (0.6 + 0.6 * unit(seed, i, 0, CLOUD_SALT)));
+            int cloudHeight = cloudWidth / 3;
+            int x = (int) (width * unit(seed, i, 1, CLOUD_SALT));
+            int y = cloudHeight / 3
+                    + (int) ((height - 4 * cloudHeight / 3) * unit(seed, i, 2, CLOUD_SALT));
+            // draw each cloud a band width to each side as well, so it wraps around the edges
+            for (int shift = -width; shift <= width; shift += width) {
+                graphics.fillOval(x + shift, y, cloudWidth, cloudHeight);
+                graphics.fillOval(x + shift + cloudWidth / 4, y - cloudHeight / 3, cloudWidth / 2,
+                        cloudHeight);
+            }
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    /**
+     * Hashes a seed and coordinates to a value in [0, 1).
+     *
+     * @param seed The seed.
+     * @param a    The first coordinate.
+     * @param b    The second coordinate.
+     * @param salt The salt of the decision.
+     * @return A value in [0, 1).
+     */
+    private static double unit(long seed, long a, long b, long salt) {
+        return WorldHash.toUnit(WorldHash.hash(seed, a, b, salt));
+    }
+
+    /**
+     * One tile of a band, placing itself according to the camera position.
+     */
+    private static class Tile extends GameObject {
+
+        /** The index of the tile in its band. */
+        private final int index;
+
+        /** How fast the band scrolls relative to the world. */
+        private final float factor;
+
+        /** Supplies the x-coordinate of the camera center. */
+        private final DoubleSupplier cameraX;
+
+        /**
+         * Constructs a new Tile instance in camera coordinates.
+         *
+         * @param topLeftCorner The initial position of the tile, in camera coordinates.
+         * @param dimensions    The dimensions of the tile.
+         * @param renderable    The image of the band.
+         * @param index         The index of the tile in its band.
+         * @param factor        How fast the band scrolls relative to the world.
+         * @param cameraX       Supplies the x-coordinate of the camera center.
+         */
+        private Tile(Vector2 topLeftCorner, Vector2 dimensions, ImageRenderable renderable,
+                     int index, float factor, DoubleSupplier cameraX) {
+            super(topLeftCorner, dimensions, renderable);
+            this.index = index;
+            this.factor = factor;
+            this.cameraX = cameraX;
+            setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+        }
+
+        /**
+         * Shifts the tile by the band's scroll, wrapped to one band width.
+         *
+         * @param deltaTime The time passed since the last update, in seconds.
+         */
+        @Override
+        public void update(float deltaTime) {
+            super.update(deltaTime);
+            float width = getDimensions().x();
+            float shift = (float) -(cameraX.getAsDouble() * factor % width);
+            if (shift > 0) {
+                shift -= width;
+            }
+            transform().setTopLeftCornerX(shift + index * width);
+        }
+    }
+}
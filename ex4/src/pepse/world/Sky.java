@@ -13,7 +13,7 @@ import java.awt.*;
 public class Sky {
 
     /** The basic color of the sky. */
-    private static final Color BASIC_SKY_COLOR = Color.decode("#80C6E5");
+    public static final Color BASIC_SKY_COLOR = Color.decode("#80C6E5");
 
     /** The tag for identifying the sky GameObject. */
     public static final String TAG_FOR_SKY = "Sky";
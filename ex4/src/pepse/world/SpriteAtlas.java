@@ -0,0 +1,189 @@
+package pepse.world;
+
+import danogl.gui.rendering.AnimationRenderable;
+import danogl.gui.rendering.ImageRenderable;
+import danogl.gui.rendering.Renderable;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The SpriteAtlas class packs sprite frames into a single image. Each frame is decoded once,
+ * drawn into the atlas and then dropped, and the renderable of a frame is a view of its region
+ * of the atlas, so the frames share one raster.
+ * Animations built from the atlas are cached, so any number of characters showing the same
+ * animation share one renderable and run in step. Loading may happen on any thread, while
+ * frames and animations must be requested from the game thread.
+ */
+public class SpriteAtlas {
+
+    /** The widest row of frames in the atlas, in pixels. A wider frame gets a row of its own. */
+    public static final int MAX_ROW_WIDTH = 1024;
+
+    /** The packed image holding every frame. */
+    private final BufferedImage image;
+
+    /** The renderable of each frame, keyed by the path it was loaded from. */
+    private final Map<String, ImageRenderable> frames = new HashMap<>();
+
+    /** The animations built so far, keyed by their frame paths and clip time. */
+    private final Map<String, AnimationRenderable> animations = new HashMap<>();
+
+    /**
+     * Constructs a new SpriteAtlas instance by packing decoded frames into rows.
+     *
+     * @param paths   The paths of the frames.
+     * @param decoded The decoded frames, in the same order as the paths.
+     */
+    private SpriteAtlas(String[] paths, BufferedImage[] decoded) {
+        int[] x = new int[decoded.length];
+        int[] y = new int[decoded.length];
+        int rowX = 0;
+        int rowY = 0;
+        int rowHeight = 0;
+        int width = 1;
+        for (int i = 0; i < decoded.length; i++) {
+            if (rowX > 0 && rowX + decoded[i].getWidth() > MAX_ROW_WIDTH) {
+                rowX = 0;
+                rowY += rowHeight;
+                rowHeight = 0;
+            }
+            x[i] = rowX;
+            y[i] = rowY;
+            rowX += decoded[i].getWidth();
+            rowHeight = Math.max(rowHeight, decoded[i].getHeight());
+            width = Math.max(width, rowX);
+        }
+        int height = Math.max(1, rowY + rowHeight);
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        for (int i = 0; i < decoded.length; i++) {
+            graphics.drawImage(decoded[i], x[i], y[i], null);
+            frames.put(paths[i], new ImageRenderable(image.getSubimage(x[i], y[i],
+                    decoded[i].getWidth(), decoded[i].getHeight())));
+        }
+        graphics.dispose();
+    }
+
+    /**
+     * Loads and packs the given frames on the calling thread. A path is read from the file
+     * system, or from the class path if no such file exists. Repeated paths are loaded once.
+     *
+     * @param paths The paths of the frames.
+     * @return The atlas holding the frames.
+     * @throws IOException If a frame cannot be read.
+     */
+    public static SpriteAtlas load(String... paths) throws IOException {
+        Set<String> unique = new LinkedHashSet<>(Arrays.asList(paths));
+        String[] uniquePaths = unique.toArray(new String[0]);
+        BufferedImage[] decoded = new BufferedImage[uniquePaths.length];
+        for (int i = 0; i < uniquePaths.length; i++) {
+            decoded[i] = read(uniquePaths[i]);
+        }
+        return new SpriteAtlas(uniquePaths, decoded);
+    }
+
+    /**
+     * Loads and packs the given frames on the common fork-join pool, so that decoding overlaps
+     * whatever the caller does until it needs the atlas.
+     *
+     * @param paths The paths of the frames.
+     * @return A future completing with the atlas, or exceptionally with an UncheckedIOException
+     *         if a frame cannot be read.
+     */
+    public static CompletableFuture<SpriteAtlas> loadAsync(String... paths) {
+        String[] copy = paths.clone();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return load(copy);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Gets the renderable of a single frame.
+     *
+     * @param path The path the frame was loaded from.
+     * @return The renderable of the frame.
+     * @throws IllegalArgumentException If the frame is not in the atlas.
+     */
+    public Renderable frame(String path) {
+        ImageRenderable frame = frames.get(path);
+        if (frame == null) {
+            throw new IllegalArgumentException("frame not in atlas: " + path);
+        }
+        return frame;
+    }
+
+    /**
+     * Gets the animation cycling through the given frames, building it on first use.
+     * Later calls with the same frames and clip time return the same renderable.
+     *
+     * @param paths            The paths of the frames, in playing order.
+     * @param timeBetweenClips The time each frame is shown, in seconds.
+     * @return The shared animation.
+     * @throws IllegalArgumentException If a frame is not in the atlas.
+     */
+    public AnimationRenderable animation(String[] paths, double timeBetweenClips) {
+        String key = String.join("|", paths) + "@" + timeBetweenClips;
+        AnimationRenderable animation = animations.get(key);
+        if (animation == null) {
+            Renderable[] clips = new Renderable[paths.length];
+            for (int i = 0; i < paths.length; i++) {
+                clips[i] = frame(paths[i]);
+            }
+            animation = new AnimationRenderable(clips, timeBetweenClips);
+            animations.put(key, animation);
+        }
+        return animation;
+    }
+
+    /**
+     * Gets the packed image holding every frame.
+     *
+     * @return The atlas image.
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Reads a single image from the file system, or from the class path if no such file exists.
+     *
+     * @param path The path of the image.
+     * @return The decoded image.
+     * @throws IOException If the image cannot be found or decoded.
+     */
+    private static BufferedImage read(String path) throws IOException {
+        File file = new File(path);
+        BufferedImage decoded;
+        if (file.exists()) {
+            decoded = ImageIO.read(file);
+        } else {
+            try (InputStream in = SpriteAtlas.class.getClassLoader().getResourceAsStream(path)) {
+                if (in == null) {
+                    throw new FileNotFoundException(path);
+                }
+                decoded = ImageIO.read(in);
+            }
+        }
+        if (decoded == null) {
+            throw new IOException("not a readable image: " + path);
+        }
+        return decoded;
+    }
+}
@@ -1,16 +1,22 @@
 package pepse.world;
 
 import danogl.util.Vector2;
-import danogl.gui.rendering.RectangleRenderable;
+import danogl.GameObject;
+import danogl.gui.rendering.Renderable;
 import utils.ColorSupplier;
+import utils.FloatUnaryOperator;
 import utils.NoiseGenerator;
+import utils.WorldHash;
 import java.awt.*;
-import java.util.LinkedList;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.function.Function;
 
 /**
  * The Terrain class represents the terrain in the game.
+ * The ground is drawn from textures baked once per range of columns, with the color of
+ * every cell baked in, while invisible blocks, one per column, give it its collisions.
  */
 public class Terrain {
 
@@ -26,6 +32,15 @@ public class Terrain {
 
     public static final String GROUND_TAG = "ground";
 
+    /** The value of surfaceLayers meaning every cell of a column gets its own shade. */
+    public static final int ALL_LAYERS = 0;
+
+    /** The largest number of released blocks kept for reuse. */
+    public static final int MAX_POOLED_BLOCKS = 8192;
+
+    /** The salt of the block color hashes. */
+    private static final long GROUND_COLOR_SALT = 7;
+
     /** The dimensions of the game window. */
     private Vector2 windowDimensions;
 
@@ -35,52 +50,322 @@ public class Terrain {
     /** The ground height at x = 0. */
     private double groundHeightAtX0;
 
+    /** The seed of the terrain noise and block colors. */
+    private final int seed;
+
+    /** The number of top layers of each column that get their own shade. */
+    private final int surfaceLayers;
+
+    /** The cached ground heights, keyed by column index. */
+    private final HeightCache heightCache = new HeightCache();
+
+    /** The released blocks, reused by the next chunks created. */
+    private final ObjectPool<Block> blockPool = new ObjectPool<>(
+            () -> new Block(Vector2.ZERO, Vector2.ONES.mult(Block.SIZE), null), MAX_POOLED_BLOCKS);
+
     /**
-     * Constructs a new Terrain instance.
+     * Constructs a new Terrain instance in which every cell gets its own shade.
      *
      * @param windowDimensions The dimensions of the game window.
      * @param seed             The seed used for generating terrain noise.
      */
     public Terrain(Vector2 windowDimensions, int seed) {
+        this(windowDimensions, seed, ALL_LAYERS);
+    }
+
+    /**
+     * Constructs a new Terrain instance in which only the top layers get their own shades.
+     *
+     * @param windowDimensions The dimensions of the game window.
+     * @param seed             The seed used for generating terrain noise.
+     * @param surfaceLayers    The number of top layers of each column that get their own shades.
+     *                         The rest of the column has the base color. ALL_LAYERS shades every
+     *                         layer.
+     */
+    public Terrain(Vector2 windowDimensions, int seed, int surfaceLayers) {
+        if (surfaceLayers < 0) {
+            throw new IllegalArgumentException("surface layers must not be negative");
+        }
         this.windowDimensions = windowDimensions;
         this.groundHeightAtX0 = windowDimensions.y() * FACTOR_SIZE_OF_TERRAIN;
         this.noiseGenerator = new NoiseGenerator(seed, (int) groundHeightAtX0);
+        this.surfaceLayers = surfaceLayers;
+        this.seed = seed;
     }
 
     /**
-     * Calculates the ground height at the given x-coordinate.
+     * Gets the ground height of the column containing the given x-coordinate.
+     * The height is computed on the first call for a column and cached afterwards.
      *
      * @param x The x-coordinate.
      * @return The ground height at the given x-coordinate.
      */
     public float groundHeightAt(float x) {
-        return windowDimensions.y() - (float) (Math.floor(1.3 * noiseGenerator.noise(x, NOISE_FACTOR) /
-                Block.SIZE) * Block.SIZE + groundHeightAtX0);
+        int column = (int) Math.floor(x / Block.SIZE);
+        float height = heightCache.get(column);
+        if (Float.isNaN(height)) {
+            height = computeGroundHeight(column * Block.SIZE);
+            heightCache.put(column, height);
+        }
+        return height;
     }
 
     /** Function to calculate ground height at any given x-coordinate. */
-    public Function<Float, Float> callGround = this::groundHeightAt;
+    public final FloatUnaryOperator callGround = this::groundHeightAt;
+
+    /**
+     * Removes the cached ground heights of the columns in the given x-range, so that an
+     * unloaded region does not keep its heights in memory.
+     *
+     * @param minX The minimum x-coordinate of the range.
+     * @param maxX The maximum x-coordinate of the range.
+     */
+    public void evictRange(int minX, int maxX) {
+        heightCache.removeRange(Math.floorDiv(minX, Block.SIZE), Math.floorDiv(maxX, Block.SIZE));
+    }
+
+    /**
+     * Computes and caches the ground heights of all columns in the given x-range with a
+     * single bulk noise evaluation. Package-private: the game fills the cache from chunk
+     * data, and only the benchmarks and tests warm it directly.
+     *
+     * @param minX The minimum x-coordinate of the range.
+     * @param maxX The maximum x-coordinate of the range.
+     */
+    void cacheRange(int minX, int maxX) {
+        int minColumn = Math.floorDiv(minX, Block.SIZE);
+        int maxColumn = Math.floorDiv(maxX - 1, Block.SIZE) + 1;
+        int count = maxColumn - minColumn;
+        if (count <= 0) {
+            return;
+        }
+        double[] noise = new double[count];
+        noiseGenerator.noiseRange(minColumn * Block.SIZE, Block.SIZE, count, NOISE_FACTOR, noise);
+        for (int i = 0; i < count; i++) {
+            if (Float.isNaN(heightCache.get(minColumn + i))) {
+                heightCache.put(minColumn + i, heightFromNoise(noise[i]));
+            }
+        }
+    }
+
+    /**
+     * Calculates the ground height at the given x-coordinate from the noise generator.
+     *
+     * @param x The x-coordinate.
+     * @return The ground height at the given x-coordinate.
+     */
+    private float computeGroundHeight(float x) {
+        return heightFromNoise(noiseGenerator.noise(x, NOISE_FACTOR));
+    }
+
+    /**
+     * Converts a noise value into a ground height aligned to the block grid.
+     *
+     * @param noise The noise value of a column.
+     * @return The ground height of the column.
+     */
+    private float heightFromNoise(double noise) {
+        return windowDimensions.y() - (float) (Math.floor(1.3 * noise /
+                Block.SIZE) * Block.SIZE + groundHeightAtX0);
+    }
 
     /**
-     * Creates a list of blocks representing the terrain within the specified x-range.
+     * Creates the invisible blocks giving the terrain within the specified x-range its
+     * collisions. The ground itself is drawn by the objects returned from createTexture.
      *
      * @param minX The minimum x-coordinate of the range.
      * @param maxX The maximum x-coordinate of the range.
      * @return A list of blocks representing the terrain.
      */
     public List<Block> createInRange(int minX, int maxX) {
-        List<Block> list = new LinkedList<>();
-        for (int i = minX; i < maxX; i += Block.SIZE) {
-            double max = groundHeightAt(i);
-            for (double j = max; j < windowDimensions.y(); j += Block.SIZE) {
-                RectangleRenderable renderable = new RectangleRenderable(
-                        ColorSupplier.approximateColor(BASE_GROUND_COLOR));
-                Block block = new Block(new Vector2(i, (float) j),
-                        Vector2.ONES.mult(Block.SIZE), renderable);
-                block.setTag(GROUND_TAG);
-                list.add(block);
+        return createFromData(generateData(minX, maxX));
+    }
+
+    /**
+     * Generates the heights and block shades of the columns in the given x-range without
+     * creating any game object. This method does not touch the height cache, so it may be
+     * called from any thread. The result depends only on the seed and the range.
+     *
+     * @param minX The minimum x-coordinate of the range.
+     * @param maxX The maximum x-coordinate of the range.
+     * @return The generated terrain data.
+     */
+    public TerrainData generateData(int minX, int maxX) {
+        int minColumn = Math.floorDiv(minX, Block.SIZE);
+        int columns = Math.max(0, Math.floorDiv(maxX - 1, Block.SIZE) + 1 - minColumn);
+        double[] noise = new double[columns];
+        noiseGenerator.noiseRange(minColumn * Block.SIZE, Block.SIZE, columns, NOISE_FACTOR, noise);
+        float[] heights = new float[columns];
+        int[] firstBlock = new int[columns + 1];
+        for (int i = 0; i < columns; i++) {
+            heights[i] = heightFromNoise(noise[i]);
+            firstBlock[i + 1] = firstBlock[i] + surfaceBlocks(heights[i]);
+        }
+        byte[] blockShades = new byte[firstBlock[columns]];
+        for (int i = 0; i < columns; i++) {
+            for (int k = firstBlock[i]; k < firstBlock[i + 1]; k++) {
+                long hash = WorldHash.hash(seed, minColumn + i, k - firstBlock[i], GROUND_COLOR_SALT);
+                blockShades[k] = (byte) ColorSupplier.shadeOf(hash);
+            }
+        }
+        return new TerrainData(minColumn, heights, firstBlock, blockShades);
+    }
+
+    /**
+     * Creates the invisible blocks described by generated terrain data, one per column from
+     * its top to the bottom of the window, and caches its heights.
+     * Must be called from the game thread.
+     *
+     * @param data The terrain data.
+     * @return A list of blocks giving the terrain its collisions.
+     */
+    public List<Block> createFromData(TerrainData data) {
+        List<Block> list = new ArrayList<>();
+        for (int c = 0; c < data.heights.length; c++) {
+            int column = data.minColumn + c;
+            float max = data.heights[c];
+            if (Float.isNaN(heightCache.get(column))) {
+                heightCache.put(column, max);
+            }
+            if (max < windowDimensions.y()) {
+                list.add(obtainBlock(new Vector2(column * Block.SIZE, max),
+                        new Vector2(Block.SIZE, columnDepth(max)), null));
             }
         }
         return list;
     }
+
+    /**
+     * Draws the ground described by terrain data into an image. Surface cells get the same
+     * shades as the palette of ColorSupplier, and the cells below them the base color.
+     * This method only reads the data, so it may be called from any thread.
+     *
+     * @param data The terrain data.
+     * @return The baked image, whose top-left corner is at textureTopLeft(data).
+     */
+    public BufferedImage bakeTexture(TerrainData data) {
+        int columns = data.heights.length;
+        float top = textureTop(data);
+        int height = 1;
+        for (int c = 0; c < columns; c++) {
+            float bottom = data.heights[c] + columnDepth(data.heights[c]);
+            height = Math.max(height, Math.round(bottom - top));
+        }
+        BufferedImage image = new BufferedImage(Math.max(1, columns * Block.SIZE), height,
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        for (int c = 0; c < columns; c++) {
+            int x = c * Block.SIZE;
+            int y = Math.round(data.heights[c] - top);
+            for (int k = data.firstBlock[c]; k < data.firstBlock[c + 1]; k++, y += Block.SIZE) {
+                graphics.setColor(ColorSupplier.shadeColor(BASE_GROUND_COLOR, data.blockShades[k]));
+                graphics.fillRect(x, y, Block.SIZE, Block.SIZE);
+            }
+            if (y < height) {
+                graphics.setColor(BASE_GROUND_COLOR);
+                graphics.fillRect(x, y, Block.SIZE, height - y);
+            }
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    /**
+     * Creates the object drawing a baked terrain texture. The object has no collisions of
+     * its own and belongs in a layer that does not collide.
+     *
+     * @param data    The terrain data the texture was baked from.
+     * @param texture The renderable of the baked image.
+     * @param image   The baked image, giving the object its dimensions.
+     * @return The object drawing the texture.
+     */
+    public GameObject createTexture(TerrainData data, Renderable texture, BufferedImage image) {
+        Vector2 dimensions = new Vector2(image.getWidth(), image.getHeight());
+        return new GameObject(textureTopLeft(data), dimensions, texture);
+    }
+
+    /**
+     * Gets the position of the top-left corner of the texture baked from terrain data.
+     *
+     * @param data The terrain data.
+     * @return The top-left corner of the texture, in world coordinates.
+     */
+    public Vector2 textureTopLeft(TerrainData data) {
+        return new Vector2(data.minColumn * Block.SIZE, textureTop(data));
+    }
+
+    /**
+     * Finds the top of the texture baked from terrain data: the height of its highest column,
+     * rounded down to a whole pixel.
+     *
+     * @param data The terrain data.
+     * @return The y-coordinate of the top of the texture.
+     */
+    private float textureTop(TerrainData data) {
+        float top = windowDimensions.y();
+        for (float height : data.heights) {
+            top = Math.min(top, height);
+        }
+        return (float) Math.floor(top);
+    }
+
+    /**
+     * Calculates the depth of a column, from its top down to the last layer reaching the
+     * bottom of the window.
+     *
+     * @param max The ground height of the column.
+     * @return The depth of the column, a whole number of blocks.
+     */
+    private float columnDepth(float max) {
+        return (float) Math.ceil((windowDimensions.y() - max) / Block.SIZE) * Block.SIZE;
+    }
+
+    /**
+     * Counts the shaded cells of a column, from its top down to the surface layers
+     * limit or the bottom of the window.
+     *
+     * @param max The ground height of the column.
+     * @return The number of shaded cells in the column.
+     */
+    private int surfaceBlocks(float max) {
+        int count = 0;
+        for (double j = max; j < windowDimensions.y(); j += Block.SIZE) {
+            if (surfaceLayers != ALL_LAYERS && count == surfaceLayers) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Takes a block from the pool, or creates one, and sets it up as a ground block.
+     *
+     * @param topLeftCorner The position of the block.
+     * @param dimensions    The dimensions of the block.
+     * @param renderable    The renderable of the block, or null for an invisible block.
+     * @return The block.
+     */
+    private Block obtainBlock(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable) {
+        Block block = blockPool.obtain();
+        block.setDimensions(dimensions);
+        block.setTopLeftCorner(topLeftCorner);
+        block.renderer().setRenderable(renderable);
+        block.setTag(GROUND_TAG);
+        return block;
+    }
+
+    /**
+     * Returns the blocks among objects that were removed from the game to the block pool.
+     * The objects must no longer be in the game objects.
+     *
+     * @param objects The removed objects. Objects that are not blocks are ignored.
+     */
+    public void recycle(Collection<? extends GameObject> objects) {
+        for (GameObject object : objects) {
+            if (object instanceof Block) {
+                blockPool.release((Block) object);
+            }
+        }
+    }
 }
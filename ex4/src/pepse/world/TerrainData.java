@@ -0,0 +1,99 @@
+package pepse.world;
+
+import utils.BufferArrays;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The TerrainData class holds the generated terrain of an x-range as plain data: the ground
+ * height of every column and the palette shade of every surface block. It holds no game objects,
+ * so it can be generated on any thread and turned into blocks later by Terrain.
+ */
+public class TerrainData {
+
+    /** The index of the first column of the range. */
+    final int minColumn;
+
+    /** The ground height of each column. */
+    final float[] heights;
+
+    /** The index of the first block shade of each column, followed by the total count. */
+    final int[] firstBlock;
+
+    /** The palette shade of each surface block, column by column from the top down. */
+    final byte[] blockShades;
+
+    /**
+     * Constructs a new TerrainData instance.
+     *
+     * @param minColumn   The index of the first column of the range.
+     * @param heights     The ground height of each column.
+     * @param firstBlock  The index of the first block shade of each column, followed by the total
+     *                    count.
+     * @param blockShades The palette shade of each surface block.
+     */
+    TerrainData(int minColumn, float[] heights, int[] firstBlock, byte[] blockShades) {
+        this.minColumn = minColumn;
+        this.heights = heights;
+        this.firstBlock = firstBlock;
+        this.blockShades = blockShades;
+    }
+
+    /**
+     * Reads terrain data written by writeTo.
+     *
+     * @param buffer The buffer to read from, positioned at the start of the data.
+     * @return The terrain data.
+     */
+    public static TerrainData readFrom(ByteBuffer buffer) {
+        int minColumn = buffer.getInt();
+        int columns = buffer.getInt();
+        float[] heights = BufferArrays.getFloats(buffer, columns);
+        int[] firstBlock = BufferArrays.getOffsets(buffer, columns + 1);
+        byte[] blockShades = BufferArrays.getShades(buffer, firstBlock[columns]);
+        return new TerrainData(minColumn, heights, firstBlock, blockShades);
+    }
+
+    /**
+     * Writes this data at the buffer position.
+     *
+     * @param buffer The buffer to write to, with at least encodedSize bytes remaining.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(minColumn);
+        buffer.putInt(heights.length);
+        BufferArrays.putFloats(buffer, heights);
+        BufferArrays.putInts(buffer, firstBlock);
+        buffer.put(blockShades);
+    }
+
+    /**
+     * Gets the number of bytes writeTo writes.
+     *
+     * @return The encoded size of this data.
+     */
+    public int encodedSize() {
+        return 2 * Integer.BYTES + Float.BYTES * heights.length + Integer.BYTES * firstBlock.length
+                + blockShades.length;
+    }
+
+    /**
+     * Estimates the heap size of this data.
+     *
+     * @return The approximate number of bytes held by the arrays of this data.
+     */
+    public long memoryBytes() {
+        return 4L * (heights.length + firstBlock.length) + blockShades.length;
+    }
+
+    /**
+     * Gets the ground height of the column containing the given x-coordinate, which must be
+     * inside the range of this data.
+     *
+     * @param x The x-coordinate.
+     * @return The ground height at the given x-coordinate.
+     */
+    public float heightAt(float x) {
+        return heights[(int) Math.floor(x / Block.SIZE) - minColumn];
+    }
+}
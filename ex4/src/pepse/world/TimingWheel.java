@@ -0,0 +1,262 @@
+package pepse.world;
+
+/**
+ * The TimingWheel class schedules deferred world events, such as fruits growing back, on a
+ * hierarchical timing wheel driven by the world time. Time is cut into ticks of fixed length.
+ * Each level of the wheel has SLOTS slots, a slot of a level covering SLOTS times the ticks of
+ * a slot of the level below, and a timer sits in the lowest level whose range reaches its
+ * deadline. Whenever the lowest level wraps around, the current slot of the next level is
+ * cascaded down into it, so scheduling, cancelling and firing a timer all take constant time,
+ * however many timers are pending.
+ * Timers are intrusive: the owner of an event keeps one Timer and reschedules it, so scheduling
+ * allocates nothing. Deadlines are absolute world times, so an owner that stores its deadline
+ * in world data can schedule it again after being unloaded and loaded.
+ * Must be used from the game thread.
+ */
+public class TimingWheel {
+
+    /** The number of bits of a slot index. */
+    private static final int SLOT_BITS = 6;
+
+    /** The number of slots of each level. */
+    public static final int SLOTS = 1 << SLOT_BITS;
+
+    /** The number of levels. */
+    public static final int LEVELS = 4;
+
+    /** The mask of a slot index. */
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    /** The largest number of ticks a timer can be placed ahead; later timers are re-placed. */
+    private static final long MAX_SPAN = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    /** The fraction of a tick by which times are rounded toward the nearest tick boundary. */
+    private static final double TICK_EPSILON = 1e-6;
+
+    /** The length of a tick, in seconds. */
+    private final double tickLength;
+
+    /** The first timer of each slot, level by level, or null for an empty slot. */
+    private final Timer[] heads = new Timer[LEVELS * SLOTS];
+
+    /** The next tick to process. */
+    private long nextTick;
+
+    /** The number of pending timers. */
+    private int size = 0;
+
+    /**
+     * Constructs a new TimingWheel instance without pending timers.
+     *
+     * @param tickLength The length of a tick, in seconds. Timers fire on the first tick
+     *                   ending at or after their deadline.
+     * @param startTime  The world time the wheel starts at, in seconds.
+     */
+    public TimingWheel(double tickLength, double startTime) {
+        if (!(tickLength > 0)) {
+            throw new IllegalArgumentException("tick length must be positive");
+        }
+        this.tickLength = tickLength;
+        this.nextTick = tickAtOrBefore(startTime) + 1;
+    }
+
+    /**
+     * Schedules a timer, moving it if it is already pending. A deadline that has passed fires
+     * on the next tick.
+     *
+     * @param timer    The timer.
+     * @param deadline The world time the timer fires at, in seconds.
+     */
+    public void schedule(Timer timer, double deadline) {
+        cancel(timer);
+        timer.deadline = Math.max((long) Math.ceil(deadline / tickLength - TICK_EPSILON), nextTick);
+        timer.wheel = this;
+        insert(timer);
+        size++;
+    }
+
+    /**
+     * Cancels a timer.
+     *
+     * @param timer The timer.
+     * @return True if the timer was pending on this wheel.
+     */
+    public boolean cancel(Timer timer) {
+        if (timer.wheel != this) {
+            return false;
+        }
+        unlink(timer);
+        timer.wheel = null;
+        size--;
+        return true;
+    }
+
+    /**
+     * Fires, in deadline order by tick, every timer whose deadline is at or before the given
+     * world time. A fired timer may schedule itself again.
+     *
+     * @param time The world time, in seconds.
+     */
+    public void advanceTo(double time) {
+        long lastTick = tickAtOrBefore(time);
+        while (nextTick <= lastTick) {
+            if (size == 0) {
+                nextTick = lastTick + 1;
+                return;
+            }
+            processTick();
+        }
+    }
+
+    /**
+     * Gets the number of pending timers.
+     *
+     * @return The number of pending timers.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the last tick boundary at or before a time. A time a rounding error short of a
+     * boundary counts as on it.
+     *
+     * @param time The world time, in seconds.
+     * @return The index of the tick boundary.
+     */
+    private long tickAtOrBefore(double time) {
+        return (long) Math.floor(time / tickLength + TICK_EPSILON);
+    }
+
+    /**
+     * Cascades the higher levels when the lowest one wraps around, then fires the timers of
+     * the current slot of the lowest level.
+     */
+    private void processTick() {
+        int index = (int) (nextTick & SLOT_MASK);
+        for (int level = 1; index == 0 && level < LEVELS; level++) {
+            index = (int) ((nextTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            cascade(level, index);
+        }
+        int slot = (int) (nextTick & SLOT_MASK);
+        nextTick++;
+        Timer timer = heads[slot];
+        heads[slot] = null;
+        while (timer != null) {
+            Timer next = timer.next;
+            timer.next = null;
+            timer.prev = null;
+            timer.wheel = null;
+            size--;
+            timer.action.run();
+            timer = next;
+        }
+    }
+
+    /**
+     * Moves the timers of a slot down to the levels below, now that the slot is current.
+     *
+     * @param level The level of the slot.
+     * @param index The index of the slot in its level.
+     */
+    private void cascade(int level, int index) {
+        int slot = level * SLOTS + index;
+        Timer timer = heads[slot];
+        heads[slot] = null;
+        while (timer != null) {
+            Timer next = timer.next;
+            insert(timer);
+            timer = next;
+        }
+    }
+
+    /**
+     * Links a timer into the slot of the lowest level whose range reaches its deadline.
+     *
+     * @param timer The timer, not linked into any slot.
+     */
+    private void insert(Timer timer) {
+        long expires = timer.deadline;
+        long delta = expires - nextTick;
+        int level;
+        if (delta < 0) {
+            expires = nextTick;
+            level = 0;
+        } else {
+            if (delta > MAX_SPAN) {
+                expires = nextTick + MAX_SPAN;
+                delta = MAX_SPAN;
+            }
+            level = 0;
+            while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+                level++;
+            }
+        }
+        int slot = level * SLOTS + (int) ((expires >>> (SLOT_BITS * level)) & SLOT_MASK);
+        timer.slot = slot;
+        timer.prev = null;
+        timer.next = heads[slot];
+        if (timer.next != null) {
+            timer.next.prev = timer;
+        }
+        heads[slot] = timer;
+    }
+
+    /**
+     * Unlinks a timer from its slot.
+     *
+     * @param timer The timer, linked into a slot.
+     */
+    private void unlink(Timer timer) {
+        if (timer.prev == null) {
+            heads[timer.slot] = timer.next;
+        } else {
+            timer.prev.next = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.next = null;
+        timer.prev = null;
+    }
+
+    /**
+     * A reusable timer running an action when it fires. A timer is pending on at most one
+     * wheel at a time.
+     */
+    public static final class Timer {
+
+        /** The action run when the timer fires. */
+        private final Runnable action;
+
+        /** The tick the timer fires on. */
+        private long deadline;
+
+        /** The slot the timer is linked into. */
+        private int slot;
+
+        /** The neighbors of the timer in its slot. */
+        private Timer next, prev;
+
+        /** The wheel the timer is pending on, or null if it is not pending. */
+        private TimingWheel wheel;
+
+        /**
+         * Constructs a new Timer instance that is not pending.
+         *
+         * @param action The action run when the timer fires.
+         */
+        public Timer(Runnable action) {
+            this.action = action;
+        }
+
+        /**
+         * Checks whether the timer is pending.
+         *
+         * @return True if the timer is scheduled and has not fired or been cancelled.
+         */
+        public boolean isPending() {
+            return wheel != null;
+        }
+    }
+}
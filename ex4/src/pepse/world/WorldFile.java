@@ -0,0 +1,283 @@
+package pepse.world;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The WorldFile class reads and writes the chunked binary world file. The file starts with a
+ * header holding the seed, the chunk width and the world time, followed by an index of the
+ * stored chunks and then the data of every chunk: its terrain heights, its flora layout and
+ * the regrow time of each fruit. The file is memory-mapped when opened, and a chunk is decoded
+ * only when it is first read, so opening a large world takes about as long as reading its index.
+ * Every index entry is checked against the file size when the file is opened, so a truncated
+ * or corrupt file is rejected there instead of failing in the middle of the game.
+ */
+public class WorldFile {
+
+    /** The first four bytes of every world file. */
+    private static final int MAGIC = 0x50455053;
+
+    /** The version of the format written by this class. */
+    private static final int VERSION = 1;
+
+    /** The size of the header: magic, version, seed, chunk width, world time and chunk count. */
+    private static final int HEADER_BYTES = 2 * Integer.BYTES + Long.BYTES + Integer.BYTES
+            + Double.BYTES + Integer.BYTES;
+
+    /** The size of an index entry: chunk index, data offset and data length. */
+    private static final int INDEX_ENTRY_BYTES = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+    /** The mapped contents of the file, or null once the file is closed. */
+    private MappedByteBuffer buffer;
+
+    /** The seed the stored world was generated from. */
+    private final long seed;
+
+    /** The width of the stored chunks, in pixels. */
+    private final int chunkWidth;
+
+    /** The world time when the file was written. */
+    private final double time;
+
+    /** The offset of the data of every stored chunk, keyed by chunk index. */
+    private final Map<Integer, Integer> offsets = new HashMap<>();
+
+    /** The length of the data of every stored chunk, keyed by chunk index. */
+    private final Map<Integer, Integer> lengths = new HashMap<>();
+
+    /**
+     * Constructs a new WorldFile instance over a mapped file and reads its header and index.
+     *
+     * @param buffer The mapped contents of the file.
+     * @throws IOException If the contents are not a world file of a supported version, or an
+     *                     index entry lies outside the file.
+     */
+    private WorldFile(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a world file");
+        }
+        ByteBuffer header = buffer.duplicate().position(Integer.BYTES);
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported world file version " + version);
+        }
+        seed = header.getLong();
+        chunkWidth = header.getInt();
+        time = header.getDouble();
+        int chunks = header.getInt();
+        long dataStart = HEADER_BYTES + (long) INDEX_ENTRY_BYTES * chunks;
+        if (chunks < 0 || dataStart > buffer.limit()) {
+            throw new IOException("truncated world file index");
+        }
+        for (int i = 0; i < chunks; i++) {
+            int index = header.getInt();
+            long offset = header.getLong();
+            int length = header.getInt();
+            if (offset < dataStart || length < 0 || offset + length > buffer.limit()) {
+                throw new IOException("chunk " + index + " lies outside the world file");
+            }
+            if (offsets.put(index, (int) offset) != null) {
+                throw new IOException("chunk " + index + " is stored twice");
+            }
+            lengths.put(index, length);
+        }
+    }
+
+    /**
+     * Opens a world file for lazy reading.
+     *
+     * @param path The path of the file.
+     * @return The opened world file.
+     * @throws IOException If the file cannot be read or is not a world file.
+     */
+    public static WorldFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new WorldFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes a world file next to its target, and forces it to the disk. The file only replaces
+     * the target when it is committed, so a failed write never leaves a truncated world behind.
+     * Does not touch any game state, so it may run off the game thread.
+     *
+     * @param path       The path of the file.
+     * @param seed       The seed the world was generated from.
+     * @param chunkWidth The width of the chunks, in pixels.
+     * @param time       The world time.
+     * @param chunks     The encoded data of every chunk to store, keyed by chunk index.
+     * @return The path of the written file.
+     * @throws IOException If the file cannot be written.
+     */
+    public static Path writeTemporary(Path path, long seed, int chunkWidth, double time,
+                                      Map<Integer, ByteBuffer> chunks) throws IOException {
+        long size = HEADER_BYTES + (long) INDEX_ENTRY_BYTES * chunks.size();
+        for (ByteBuffer data : chunks.values()) {
+            size += data.remaining();
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("world too large for a single mapped file");
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.putInt(MAGIC).putInt(VERSION).putLong(seed).putInt(chunkWidth).putDouble(time)
+                    .putInt(chunks.size());
+            long offset = HEADER_BYTES + (long) INDEX_ENTRY_BYTES * chunks.size();
+            for (Map.Entry<Integer, ByteBuffer> entry : chunks.entrySet()) {
+                int length = entry.getValue().remaining();
+                out.putInt(entry.getKey()).putLong(offset).putInt(length);
+                offset += length;
+            }
+            for (ByteBuffer data : chunks.values()) {
+                out.put(data.duplicate());
+            }
+            out.force();
+            unmap(out);
+        }
+        return temporary;
+    }
+
+    /**
+     * Moves a file written by writeTemporary over its target. Any world file open on the target
+     * must be closed first, since a mapped file cannot be replaced on every platform.
+     *
+     * @param temporary The path of the written file.
+     * @param path      The path of the world file to replace.
+     * @throws IOException If the file cannot be moved.
+     */
+    public static void commit(Path temporary, Path path) throws IOException {
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Releases the mapping of the file. The chunks must not be read afterwards.
+     */
+    public void close() {
+        MappedByteBuffer mapped = buffer;
+        buffer = null;
+        if (mapped != null) {
+            unmap(mapped);
+        }
+    }
+
+    /**
+     * Releases a mapping right away instead of when the buffer is collected, so the file can be
+     * moved or deleted on platforms that lock mapped files.
+     *
+     * @param mapped The mapping to release. It must not be accessed afterwards.
+     */
+    private static void unmap(MappedByteBuffer mapped) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field unsafe = unsafeClass.getDeclaredField("theUnsafe");
+            unsafe.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class)
+                    .invoke(unsafe.get(null), mapped);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // The mapping is released when the buffer is collected instead.
+        }
+    }
+
+    /**
+     * Gets the seed the stored world was generated from.
+     *
+     * @return The world seed.
+     */
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * Gets the width of the stored chunks.
+     *
+     * @return The chunk width, in pixels.
+     */
+    public int chunkWidth() {
+        return chunkWidth;
+    }
+
+    /**
+     * Gets the world time when the file was written.
+     *
+     * @return The world time, in seconds.
+     */
+    public double time() {
+        return time;
+    }
+
+    /**
+     * Gets the indices of the stored chunks.
+     *
+     * @return The stored chunk indices.
+     */
+    public Set<Integer> chunkIndices() {
+        return offsets.keySet();
+    }
+
+    /**
+     * Checks whether the file stores a chunk.
+     *
+     * @param index The chunk index.
+     * @return True if the file holds the data of the chunk.
+     */
+    public boolean contains(int index) {
+        return offsets.containsKey(index);
+    }
+
+    /**
+     * Gets the encoded data of a stored chunk, exactly as it is stored in the file.
+     *
+     * @param index The chunk index.
+     * @return A read-only view of the chunk data, or null if the file does not store the chunk.
+     */
+    public ByteBuffer raw(int index) {
+        Integer offset = offsets.get(index);
+        if (offset == null) {
+            return null;
+        }
+        if (buffer == null) {
+            throw new IllegalStateException("world file is closed");
+        }
+        return buffer.duplicate().position(offset).limit(offset + lengths.get(index)).slice()
+                .asReadOnlyBuffer();
+    }
+
+    /**
+     * Decodes the data of a stored chunk.
+     *
+     * @param index The chunk index.
+     * @return The chunk data, or null if the file does not store the chunk.
+     * @throws UncheckedIOException If the stored data of the chunk is corrupt.
+     */
+    public ChunkData read(int index) {
+        ByteBuffer data = raw(index);
+        if (data == null) {
+            return null;
+        }
+        ChunkData chunk;
+        try {
+            chunk = ChunkData.readFrom(data);
+        } catch (RuntimeException e) {
+            throw new UncheckedIOException(new IOException("chunk " + index + " is corrupt", e));
+        }
+        if (data.hasRemaining()) {
+            throw new UncheckedIOException(new IOException("chunk " + index + " is corrupt"));
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,317 @@
+package pepse.world;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * The WorldStore class keeps the data of every chunk generated so far, together with the world
+ * time. Game objects exist only for the chunks around the camera; the rest of the world lives
+ * here as compact plain data, so chunks that are loaded again look exactly as they were left,
+ * including the fruits that were eaten. A store may be backed by a world file, whose chunks
+ * are decoded the first time they are needed. Saving re-encodes only the chunks that were
+ * generated or changed since the last save; every other chunk is copied from the world file as
+ * it is stored.
+ */
+public class WorldStore {
+
+    /** The data of every generated chunk, keyed by chunk index. */
+    private final Map<Integer, ChunkData> chunks = new HashMap<>();
+
+    /** The indices of the chunks generated since the last save. */
+    private final Set<Integer> unsaved = new HashSet<>();
+
+    /** The indices of the chunks whose stored data could not be decoded. */
+    private final Set<Integer> unreadable = new HashSet<>();
+
+    /** The world file holding the chunks that were not decoded yet, or null. */
+    private WorldFile file;
+
+    /** The save being written off the game thread, or null. */
+    private CompletableFuture<Path> pendingSave;
+
+    /** The path the pending save replaces. */
+    private Path pendingPath;
+
+    /** The indices of the chunks encoded for the pending save. */
+    private List<Integer> pendingEncoded;
+
+    /** The time passed in the world, in seconds. */
+    private double time;
+
+    /**
+     * Constructs a new, empty WorldStore instance.
+     */
+    public WorldStore() {
+        this.file = null;
+        this.time = 0;
+    }
+
+    /**
+     * Constructs a new WorldStore instance continuing the world saved in a file.
+     *
+     * @param file The world file to read chunks from.
+     */
+    public WorldStore(WorldFile file) {
+        this.file = file;
+        this.time = file.time();
+    }
+
+    /**
+     * Gets the data of a chunk, decoding it from the world file if needed.
+     *
+     * @param index The chunk index.
+     * @return The chunk data, or null if the chunk was never generated or its stored data is
+     *         corrupt.
+     */
+    public ChunkData get(int index) {
+        ChunkData data = chunks.get(index);
+        if (data == null && file != null && !unreadable.contains(index)) {
+            try {
+                data = file.read(index);
+            } catch (UncheckedIOException e) {
+                unreadable.add(index);
+                System.err.println("Could not read chunk " + index + ": "
+                        + e.getCause().getMessage());
+                return null;
+            }
+            if (data != null) {
+                chunks.put(index, data);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Stores the data of a chunk.
+     *
+     * @param index The chunk index.
+     * @param data  The chunk data.
+     */
+    public void put(int index, ChunkData data) {
+        if (chunks.put(index, data) != data) {
+            unsaved.add(index);
+        }
+    }
+
+    /**
+     * Checks whether a chunk was generated.
+     *
+     * @param index The chunk index.
+     * @return True if the store holds the data of the chunk, false if the chunk must be
+     *         generated.
+     */
+    public boolean contains(int index) {
+        return chunks.containsKey(index)
+                || (file != null && file.contains(index) && !unreadable.contains(index));
+    }
+
+    /**
+     * Gets the number of chunks decoded or generated in this session.
+     *
+     * @return The number of chunks held in memory.
+     */
+    public int size() {
+        return chunks.size();
+    }
+
+    /**
+     * Saves every chunk of the world, including the ones never decoded from the world file,
+     * together with the world time, and waits for the file to be written.
+     *
+     * @param path       The path of the file to write.
+     * @param seed       The seed the world was generated from.
+     * @param chunkWidth The width of the chunks, in pixels.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path path, long seed, int chunkWidth) throws IOException {
+        if (pendingSave != null) {
+            try {
+                finishSave();
+            } catch (IOException e) {
+                // The chunks of the failed save are marked unsaved again and written below.
+            }
+        }
+        List<Integer> encoded = new ArrayList<>();
+        Map<Integer, ByteBuffer> snapshot = snapshot(encoded);
+        try {
+            replaceFile(WorldFile.writeTemporary(path, seed, chunkWidth, time, snapshot), path);
+        } catch (IOException e) {
+            unsaved.addAll(encoded);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts saving the world on an executor. The chunks are snapshotted on the calling thread,
+     * and the file is written and forced to the disk on the executor; pollSave then replaces
+     * the world file on the game thread. Does nothing while an earlier save is still pending.
+     *
+     * @param path       The path of the file to write.
+     * @param seed       The seed the world was generated from.
+     * @param chunkWidth The width of the chunks, in pixels.
+     * @param executor   The executor writing the file.
+     */
+    public void saveAsync(Path path, long seed, int chunkWidth, Executor executor) {
+        if (pendingSave != null) {
+            return;
+        }
+        List<Integer> encoded = new ArrayList<>();
+        Map<Integer, ByteBuffer> snapshot = snapshot(encoded);
+        double savedTime = time;
+        pendingPath = path;
+        pendingEncoded = encoded;
+        pendingSave = CompletableFuture.supplyAsync(() -> {
+            try {
+                return WorldFile.writeTemporary(path, seed, chunkWidth, savedTime, snapshot);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Replaces the world file once the pending save was written. Called every frame from the
+     * game thread.
+     *
+     * @throws IOException If the pending save failed. Its chunks are saved again next time.
+     */
+    public void pollSave() throws IOException {
+        if (pendingSave != null && pendingSave.isDone()) {
+            finishSave();
+        }
+    }
+
+    /**
+     * Checks whether a background save was started and not yet polled to completion.
+     *
+     * @return True if a save is pending.
+     */
+    boolean isSaving() {
+        return pendingSave != null;
+    }
+
+    /**
+     * Waits for the pending save and replaces the world file with it.
+     *
+     * @throws IOException If the pending save failed.
+     */
+    private void finishSave() throws IOException {
+        CompletableFuture<Path> save = pendingSave;
+        Path path = pendingPath;
+        List<Integer> encoded = pendingEncoded;
+        pendingSave = null;
+        pendingPath = null;
+        pendingEncoded = null;
+        try {
+            Path temporary;
+            try {
+                temporary = save.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof UncheckedIOException
+                        ? ((UncheckedIOException) e.getCause()).getCause()
+                        : new IOException(e.getCause());
+            }
+            replaceFile(temporary, path);
+        } catch (IOException e) {
+            unsaved.addAll(encoded);
+            throw e;
+        }
+    }
+
+    /**
+     * Encodes the chunks generated or changed since the last save, and takes every other chunk
+     * as stored in the world file. Runs on the game thread.
+     *
+     * @param encoded Receives the indices of the encoded chunks.
+     * @return The encoded data of every chunk, keyed by chunk index.
+     */
+    private Map<Integer, ByteBuffer> snapshot(List<Integer> encoded) {
+        Map<Integer, ByteBuffer> snapshot = new HashMap<>();
+        if (file != null) {
+            for (int index : file.chunkIndices()) {
+                if (!unreadable.contains(index)) {
+                    snapshot.put(index, file.raw(index));
+                }
+            }
+        }
+        for (Map.Entry<Integer, ChunkData> entry : chunks.entrySet()) {
+            int index = entry.getKey();
+            ChunkData data = entry.getValue();
+            if (unsaved.contains(index) || data.isModified() || !snapshot.containsKey(index)) {
+                ByteBuffer buffer = ByteBuffer.allocate(data.encodedSize());
+                data.writeTo(buffer);
+                snapshot.put(index, buffer.flip());
+                data.clearModified();
+                encoded.add(index);
+            }
+        }
+        unsaved.clear();
+        return snapshot;
+    }
+
+    /**
+     * Moves a written save over the world file and reads chunks from it from now on. The old
+     * file is closed first, since a mapped file cannot be replaced on every platform.
+     *
+     * @param temporary The path of the written save.
+     * @param path      The path of the world file.
+     * @throws IOException If the world file cannot be replaced.
+     */
+    private void replaceFile(Path temporary, Path path) throws IOException {
+        if (file != null) {
+            file.close();
+            file = null;
+        }
+        try {
+            WorldFile.commit(temporary, path);
+        } finally {
+            unreadable.clear();
+            if (Files.exists(path)) {
+                file = WorldFile.open(path);
+            }
+        }
+    }
+
+    /**
+     * Gets the time passed in the world.
+     *
+     * @return The world time, in seconds.
+     */
+    public double time() {
+        return time;
+    }
+
+    /**
+     * Advances the world time.
+     *
+     * @param deltaTime The time passed since the last frame, in seconds.
+     */
+    public void advance(float deltaTime) {
+        time += deltaTime;
+    }
+
+    /**
+     * Estimates the heap size of the chunks held in memory.
+     *
+     * @return The approximate number of bytes held by the chunk data in memory.
+     */
+    public long memoryBytes() {
+        long bytes = 0;
+        for (ChunkData data : chunks.values()) {
+            bytes += data.memoryBytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,183 @@
+package pepse.world.daynight;
+
+import danogl.GameObject;
+import danogl.gui.rendering.RectangleRenderable;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+import pepse.world.Sky;
+
+import java.awt.*;
+import java.util.function.DoubleSupplier;
+
+/**
+ * The DayNightCycle class is the single clock of the day-night cycle. It precomputes a lookup
+ * table of the sun center, the halo and night opacities and the sky tint over one cycle, and
+ * on every update applies the entry of the current time to the sun, its halo, the night and
+ * the sky. They all read the same entry, so they never drift out of phase, and an update
+ * allocates nothing.
+ * The time is read from a clock, normally the world time, so the time of day is saved with
+ * the world. The cycle must be added to a layer that collides with nothing.
+ */
+public class DayNightCycle extends GameObject {
+
+    /** The number of entries in the lookup table of a cycle. */
+    public static final int SAMPLES = 2048;
+
+    /** The number of sky tints between the day color and the dusk color. */
+    public static final int SKY_TINTS = 32;
+
+    /** The color the sky turns while the sun crosses the horizon. */
+    private static final Color DUSK_SKY_COLOR = new Color(238, 156, 112);
+
+    /** The sun elevation, as the cosine of its angle from noon, below which the sky tints. */
+    private static final float DUSK_ELEVATION = 0.4f;
+
+    /** The sun elevation around the horizon over which the halo fades in and out. */
+    private static final float HALO_FADE_ELEVATION = 0.2f;
+
+    /** The sky. */
+    private final GameObject sky;
+
+    /** The sun. */
+    private final GameObject sun;
+
+    /** The halo around the sun. */
+    private final GameObject halo;
+
+    /** The night covering the window. */
+    private final GameObject night;
+
+    /** The length of a cycle, in seconds. */
+    private final float cycleLength;
+
+    /** The clock giving the time, in seconds. */
+    private final DoubleSupplier clock;
+
+    /** The sun center of each entry, in camera coordinates. */
+    private final Vector2[] sunCenters = new Vector2[SAMPLES];
+
+    /** The halo opacity of each entry. */
+    private final float[] haloOpacities = new float[SAMPLES];
+
+    /** The night opacity of each entry. */
+    private final float[] nightOpacities = new float[SAMPLES];
+
+    /** The sky tint index of each entry. */
+    private final byte[] skyTints = new byte[SAMPLES];
+
+    /** The sky renderables, from the day color to the dusk color. */
+    private final Renderable[] skyRenderables = new Renderable[SKY_TINTS];
+
+    /** The entry applied on the last update, or -1 before the first one. */
+    private int currentSample = -1;
+
+    /**
+     * Constructs a new DayNightCycle instance and computes its lookup table.
+     * The cycle starts at noon.
+     *
+     * @param windowDimensions The dimensions of the window.
+     * @param cycleLength      The length of a cycle, in seconds.
+     * @param clock            The clock giving the time, in seconds.
+     * @param sky              The sky.
+     * @param sun              The sun.
+     * @param halo             The halo around the sun.
+     * @param night            The night covering the window.
+     */
+    public DayNightCycle(Vector2 windowDimensions, float cycleLength, DoubleSupplier clock,
+                         GameObject sky, GameObject sun, GameObject halo, GameObject night) {
+        super(Vector2.ZERO, Vector2.ZERO, null);
+        if (cycleLength <= 0) {
+            throw new IllegalArgumentException("cycle length must be positive");
+        }
+        this.sky = sky;
+        this.sun = sun;
+        this.halo = halo;
+        this.night = night;
+        this.cycleLength = cycleLength;
+        this.clock = clock;
+        for (int i = 0; i < SKY_TINTS; i++) {
+            skyRenderables[i] = new RectangleRenderable(
+                    blend(Sky.BASIC_SKY_COLOR, DUSK_SKY_COLOR, i / (float) (SKY_TINTS - 1)));
+        }
+        Vector2 orbitCenter = Sun.orbitCenter(windowDimensions);
+        float radius = orbitCenter.y() - Sun.noonCenter(windowDimensions).y();
+        for (int i = 0; i < SAMPLES; i++) {
+            float phase = i / (float) SAMPLES;
+            double angle = 2 * Math.PI * phase;
+            float elevation = (float) Math.cos(angle);
+            sunCenters[i] = new Vector2(orbitCenter.x() + radius * (float) Math.sin(angle),
+                    orbitCenter.y() - radius * elevation);
+            haloOpacities[i] = clamp(0.5f + elevation / (2 * HALO_FADE_ELEVATION));
+            float halfCycle = phase < 0.5f ? 2 * phase : 2 - 2 * phase;
+            nightOpacities[i] = Night.MIDNIGHT_OPACITY * smoothstep(halfCycle);
+            float dusk = clamp(1 - Math.abs(elevation) / DUSK_ELEVATION);
+            skyTints[i] = (byte) Math.round(dusk * (SKY_TINTS - 1));
+        }
+    }
+
+    /**
+     * Applies the lookup table entry of the current time, unless it is the one already applied.
+     *
+     * @param deltaTime The time passed since the last update, in seconds.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        double phase = clock.getAsDouble() / cycleLength;
+        phase -= Math.floor(phase);
+        int sample = Math.min(SAMPLES - 1, (int) (phase * SAMPLES));
+        if (sample == currentSample) {
+            return;
+        }
+        currentSample = sample;
+        sun.setCenter(sunCenters[sample]);
+        halo.setCenter(sunCenters[sample]);
+        halo.renderer().setOpaqueness(haloOpacities[sample]);
+        night.renderer().setOpaqueness(nightOpacities[sample]);
+        sky.renderer().setRenderable(skyRenderables[skyTints[sample]]);
+    }
+
+    /**
+     * Gets the phase of the cycle applied on the last update.
+     *
+     * @return The phase, in [0, 1), where 0 is noon and 0.5 is midnight, or -1 before the
+     *         first update.
+     */
+    public float getPhase() {
+        return currentSample < 0 ? -1 : currentSample / (float) SAMPLES;
+    }
+
+    /**
+     * Eases a value in [0, 1] in and out with a cubic curve.
+     *
+     * @param t The value.
+     * @return The eased value.
+     */
+    private static float smoothstep(float t) {
+        return t * t * (3 - 2 * t);
+    }
+
+    /**
+     * Clamps a value to [0, 1].
+     *
+     * @param value The value.
+     * @return The clamped value.
+     */
+    private static float clamp(float value) {
+        return Math.max(0, Math.min(1, value));
+    }
+
+    /**
+     * Blends two colors.
+     *
+     * @param from   The color at weight 0.
+     * @param to     The color at weight 1.
+     * @param weight The weight of the second color, in [0, 1].
+     * @return The blended color.
+     */
+    private static Color blend(Color from, Color to, float weight) {
+        return new Color(Math.round(from.getRed() + (to.getRed() - from.getRed()) * weight),
+                Math.round(from.getGreen() + (to.getGreen() - from.getGreen()) * weight),
+                Math.round(from.getBlue() + (to.getBlue() - from.getBlue()) * weight));
+    }
+}
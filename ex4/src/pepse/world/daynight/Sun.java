@@ -2,7 +2,6 @@ package pepse.world.daynight;
 
 import danogl.GameObject;
 import danogl.components.CoordinateSpace;
-import danogl.components.Transition;
 import danogl.gui.rendering.OvalRenderable;
 import danogl.util.Vector2;
 
@@ -10,41 +9,32 @@ import java.awt.*;
 
 /**
  * The Sun class represents the sun object in the game.
+ * The sun is moved along its orbit by the DayNightCycle.
  */
 public class Sun {
 
-    /** The factor by which to scale the sun dimensions. */
-    private static final float SUN_DIMENSIONS_FACTOR = 2;
-
-    /** The radius of the sun along the Y-axis. */
-    private static final float RADIUS_Y = 10;
-
     /** The initial position of the sun. */
     public static final Vector2 FIRST_PLACE_OF_THE_SUN = new Vector2(1, 1);
 
     /** The size of the sun. */
     public static final Vector2 SUN_SIZE = new Vector2(90, 90);
 
-    /** The initial angle of the sun. */
-    public static final float FIRST_ANGLE = 0.f;
-
-    /** The final angle of the sun. */
-    public static final float LAST_ANGLE = 360.f;
-
     /** The factor determining the position of the sun center during the day-night cycle. */
     public static final float FACTOR_SUN_CENTER = 2 / 3.f;
 
+    /** The distance the center of the orbit is moved down from FACTOR_SUN_CENTER. */
+    public static final float SUN_CENTER_OFFSET = 50;
+
+    /** The tag for identifying the sun. */
+    public static final String TAG_FOR_THE_SUN = "sun";
+
     /**
-     * Creates a sun game object with specified window dimensions and cycle length.
+     * Creates a sun game object.
      *
      * @param windowDimensions The dimensions of the window.
-     * @param cycleLength      The length of the day-night cycle.
      * @return The created sun game object.
      */
-    public static GameObject create(Vector2 windowDimensions, float cycleLength) {
-        // Calculate the initial position of the sun
-        Vector2 initializedSun = new Vector2(windowDimensions.x() / 2, windowDimensions.y() / 2);
-
+    public static GameObject create(Vector2 windowDimensions) {
         // Create an oval renderable for the sun with yellow color
         OvalRenderable ovalRenderable = new OvalRenderable(Color.YELLOW);
 
@@ -54,25 +44,34 @@ public class Sun {
         // Set coordinate space to camera coordinates
         sun.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
 
-        // Calculate the center position of the sun during the day-night cycle
-        Vector2 cycleCenter = new Vector2(windowDimensions.x() / 2,
-                windowDimensions.y() * FACTOR_SUN_CENTER + 50);
-
-        // Create a transition for rotating the sun during the day-night cycle
-        Transition<Float> transition = new Transition<>(sun,
-                angle -> sun.setCenter(initializedSun.subtract(
-                        cycleCenter).rotated(angle).add(cycleCenter)),
-                FIRST_ANGLE,
-                LAST_ANGLE,
-                Transition.LINEAR_INTERPOLATOR_FLOAT,
-                cycleLength,
-                Transition.TransitionType.TRANSITION_LOOP,
-                null);
+        // Start at noon, above the center of the orbit
+        sun.setCenter(noonCenter(windowDimensions));
 
         // Assign a tag to identify the sun object
-        sun.setTag("sun");
+        sun.setTag(TAG_FOR_THE_SUN);
 
         // Return the created sun object
         return sun;
     }
+
+    /**
+     * Gets the position of the sun center at noon, the start of the cycle.
+     *
+     * @param windowDimensions The dimensions of the window.
+     * @return The sun center at noon, in camera coordinates.
+     */
+    public static Vector2 noonCenter(Vector2 windowDimensions) {
+        return new Vector2(windowDimensions.x() / 2, windowDimensions.y() / 2);
+    }
+
+    /**
+     * Gets the center of the orbit of the sun.
+     *
+     * @param windowDimensions The dimensions of the window.
+     * @return The center of the orbit, in camera coordinates.
+     */
+    public static Vector2 orbitCenter(Vector2 windowDimensions) {
+        return new Vector2(windowDimensions.x() / 2,
+                windowDimensions.y() * FACTOR_SUN_CENTER + SUN_CENTER_OFFSET);
+    }
 }
@@ -9,6 +9,7 @@ import java.awt.*;
 
 /**
  * The SunHalo class represents the halo around the sun in the game.
+ * The halo is kept on the sun by the DayNightCycle.
  */
 public class SunHalo {
 
@@ -22,7 +23,7 @@ public class SunHalo {
     public static final Vector2 SIZE_OF_HALO = new Vector2(130, 130);
 
     /**
-     * Creates a halo around the sun with the specified sun object.
+     * Creates a halo around the sun.
      *
      * @param sun The sun game object.
      * @return The created halo sun game object.
@@ -37,8 +38,8 @@ public class SunHalo {
         // Set coordinate space to camera coordinates
         haloSun.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
 
-        // Add a component to update the position of the halo sun based on the sun's position
-        haloSun.addComponent(deltaTime -> haloSun.setCenter(sun.getCenter()));
+        // Start around the sun
+        haloSun.setCenter(sun.getCenter());
 
         // Assign a tag to identify the halo sun object
         haloSun.setTag(TAG_FOR_THE_HALO_SUN);
@@ -1,18 +1,20 @@
 package pepse.world.trees;
 
 import danogl.GameObject;
-import danogl.components.ScheduledTask;
-import danogl.components.Transition;
-import danogl.gui.rendering.OvalRenderable;
-import danogl.gui.rendering.RectangleRenderable;
 import danogl.util.Vector2;
 import pepse.world.Block;
+import pepse.world.ObjectPool;
+import pepse.world.TimingWheel;
 import utils.ColorSupplier;
+import utils.FloatUnaryOperator;
+import utils.WorldHash;
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
-import java.util.function.Function;
+import java.util.Set;
+import java.util.function.DoubleSupplier;
 
 
 /**
@@ -46,25 +48,77 @@ public class Flora {
     public static final String LEAF_TAG = "leaf";
     public static final String FRUIT_TAG = "fruit";
 
+    /** The distance from a tree's head to the edge of its canopy. */
+    private static final int CANOPY_RADIUS = FACTOR_FOR_RANDOM_LEAF * Leaf.SIZE;
+
+    /** The largest number of released leaves kept for reuse. */
+    public static final int MAX_POOLED_LEAVES = 8192;
+
+    /** The largest number of released fruits kept for reuse. */
+    public static final int MAX_POOLED_FRUITS = 1024;
+
+    /** Salts separating the independent random decisions made for the same column or cell. */
+    private static final long TREE_SALT = 1, TREE_COLOR_SALT = 2, LEAF_SALT = 3, LEAF_COLOR_SALT = 4,
+            FRUIT_SALT = 5, FRUIT_COLOR_SALT = 6;
+
     /** Function to get ground height at specific x-coordinate. */
-    private static Function<Float, Float> groundHeightAt = null;
+    private static FloatUnaryOperator groundHeightAt = null;
+
+    /** The seed all placement decisions are derived from. */
+    private final long seed;
+
+    /** The world time, used to tell which stored fruits are still regrowing. */
+    private final DoubleSupplier worldTime;
+
+    /** The wheel the regrowth of eaten fruits is scheduled on. */
+    private final TimingWheel events;
 
-    /** List to store leaf game objects. */
-    private List<GameObject> leafsList;
+    /** The live trees, leaves and fruits, notified when the jump state flips. */
+    private final Set<SpecialMode> liveObjects = new HashSet<>();
 
-    /** List to store fruit game objects. */
-    private List<GameObject> fruitsList;
-    private float time=0;
+    /** The spatial index of the live fruits. */
+    private final FruitGrid fruitGrid = new FruitGrid();
+
+    /** The released leaves, reused by the next canopies created. */
+    private final ObjectPool<Leaf> leafPool = new ObjectPool<>(
+            () -> new Leaf(Vector2.ZERO, new Vector2(Leaf.SIZE, Leaf.SIZE), null),
+            MAX_POOLED_LEAVES);
+
+    /** The released fruits, reused by the next canopies created. */
+    private final ObjectPool<Fruit> fruitPool = new ObjectPool<>(
+            () -> new Fruit(Vector2.ZERO, new Vector2(FRUIT_SIZE, FRUIT_SIZE), null),
+            MAX_POOLED_FRUITS);
 
     private boolean isJumping = false;
 
+    /**
+     * Constructor for Flora class, for flora whose fruits are never restored from stored data
+     * and whose time never advances, so eaten fruits do not grow back.
+     *
+     * @param groundHeightAt Function to get ground height at specific x-coordinate.
+     * @param seed The seed all placement decisions are derived from. The same seed always
+     *             places the same flora.
+     */
+    public Flora(FloatUnaryOperator groundHeightAt, long seed) {
+        this(groundHeightAt, seed, () -> 0, new TimingWheel(1, 0));
+    }
+
     /**
      * Constructor for Flora class.
      *
      * @param groundHeightAt Function to get ground height at specific x-coordinate.
+     * @param seed The seed all placement decisions are derived from. The same seed always
+     *             places the same flora.
+     * @param worldTime Supplies the world time in seconds, which eaten fruits are stored in.
+     * @param events The wheel the regrowth of eaten fruits is scheduled on, advanced with the
+     *               world time.
      */
-    public Flora(Function<Float, Float> groundHeightAt) {
+    public Flora(FloatUnaryOperator groundHeightAt, long seed, DoubleSupplier worldTime,
+                 TimingWheel events) {
         Flora.groundHeightAt = groundHeightAt;
+        this.seed = seed;
+        this.worldTime = worldTime;
+        this.events = events;
     }
 
     /**
@@ -74,10 +128,53 @@ public class Flora {
      */
     public void isJumping(boolean isJumped) {
         if(isJumping!=isJumped) {
-            Leaf.setSpecialMode(isJumped);
-            Fruit.setSpecialMode(isJumped);
-            Tree.setSpecialMode(isJumped);
             isJumping = isJumped;
+            for (SpecialMode object : liveObjects) {
+                object.setSpecialMode(isJumped);
+            }
+        }
+    }
+
+    /**
+     * Method to get the spatial index of the fruits created by this flora.
+     *
+     * @return The fruit grid.
+     */
+    public FruitGrid getFruitGrid() {
+        return fruitGrid;
+    }
+
+    /**
+     * Method to stop notifying and indexing objects that were removed from the game.
+     *
+     * @param objects The removed objects. Objects not created by this flora are ignored.
+     */
+    public void release(Collection<? extends GameObject> objects) {
+        for (GameObject object : objects) {
+            if (object instanceof SpecialMode) {
+                liveObjects.remove(object);
+            }
+            if (object instanceof Fruit) {
+                fruitGrid.remove((Fruit) object);
+            }
+        }
+    }
+
+    /**
+     * Method to reset the leaves and fruits among removed objects and return them to their
+     * pools. The objects must already be released and no longer be in the game objects.
+     *
+     * @param objects The removed objects. Objects that are not leaves or fruits are ignored.
+     */
+    public void recycle(Collection<? extends GameObject> objects) {
+        for (GameObject object : objects) {
+            if (object instanceof Leaf) {
+                ((Leaf) object).recycle();
+                leafPool.release((Leaf) object);
+            } else if (object instanceof Fruit) {
+                ((Fruit) object).recycle();
+                fruitPool.release((Fruit) object);
+            }
         }
     }
 
@@ -89,17 +186,12 @@ public class Flora {
      * @return List of created trees.
      */
     public List<Tree> createInRange(int minX, int maxX) {
+        FloraData.Builder builder = new FloraData.Builder();
+        placeTrees(builder, minX, maxX, groundHeightAt, false);
+        FloraData data = builder.build();
         List<Tree> list = new ArrayList<>();
-        for (int i = minX; i < maxX; i += Block.SIZE) {
-            boolean random = isPlace(Tree.PROBABILITY_OF_TREE);
-            if (random) {
-                RectangleRenderable renderable = new RectangleRenderable(ColorSupplier.approximateColor
-                        (Tree.BASIC_TREE));
-                Tree b = new Tree(new Vector2(i, groundHeightAt.apply((float) i)-Tree.HEIGHT_OF_TREE),
-                        new Vector2(Block.SIZE, Tree.HEIGHT_OF_TREE), renderable);
-                b.setTag(TAG_FOR_TREE);
-                list.add(b);
-            }
+        for (int t = 0; t < data.treeX.length; t++) {
+            list.add(createTree(data, t));
         }
         return list;
     }
@@ -109,97 +201,242 @@ public class Flora {
      *
      * @param headTreeX X-coordinate of the tree's head.
      * @param headTreeY Y-coordinate of the tree's head.
-     * @return List containing leaf and fruit game objects.
+     * @return List containing the leaf and fruit game objects, followed by a list holding the
+     *         wind field swaying the leaves.
      */
     public List<List<GameObject>> createLeafs(float headTreeX, float headTreeY) {
+        FloraData.Builder builder = new FloraData.Builder();
+        builder.addTree(headTreeX, headTreeY, 0);
+        placeLeafs(builder, headTreeX, headTreeY);
+        FloraData data = builder.build();
         List<List<GameObject>> list = new ArrayList<>();
-        leafsList = new ArrayList<>();
-        fruitsList = new ArrayList<>();
-
-        int move_to = FACTOR_FOR_RANDOM_LEAF * Leaf.SIZE;
-        time = 0.f;
-        for (int i = (int) headTreeX - move_to; i < headTreeX + move_to; i += Leaf.SIZE) {
-            for (int j = (int) headTreeY - move_to; j < headTreeY + move_to; j += Leaf.SIZE) {
-                if (isPlace(Leaf.PROBABILITY_OF_LEAF))
-                    createLeaf(leafsList, i, j);
-                else if (isPlace(Fruit.PROBABILITY_FRUIT)) {
-                    createFruit(fruitsList, i, j);
-                }
-            }
+        List<GameObject> leafsList = new ArrayList<>();
+        List<GameObject> fruitsList = new ArrayList<>();
+        WindField wind = new WindField();
+        createCanopy(data, 0, wind, leafsList, fruitsList);
+        list.add(leafsList);
+        list.add(fruitsList);
+        list.add(List.of(wind));
+        return list;
+    }
+
+    /**
+     * Method to generate the trees, leaves and fruits of a specific range as plain data,
+     * without creating any game object. May be called from any thread, as long as the
+     * given ground function may be. The result depends only on the seed and the range.
+     *
+     * @param minX Minimum x-coordinate for tree placement.
+     * @param maxX Maximum x-coordinate for tree placement.
+     * @param groundHeight Function to get ground height at specific x-coordinate in the range.
+     * @return The generated flora data.
+     */
+    public FloraData generateData(int minX, int maxX, FloatUnaryOperator groundHeight) {
+        FloraData.Builder builder = new FloraData.Builder();
+        placeTrees(builder, minX, maxX, groundHeight, true);
+        return builder.build();
+    }
+
+    /**
+     * Method to create the game objects described by flora data. Fruits the data records as
+     * eaten stay hidden until their regrow time. Must be called from the game thread.
+     *
+     * @param data The flora data.
+     * @return List containing the leaf, fruit and tree game objects, in this order, followed
+     *         by a list holding the wind field swaying the leaves.
+     */
+    public List<List<GameObject>> createFromData(FloraData data) {
+        List<List<GameObject>> list = new ArrayList<>();
+        List<GameObject> leafsList = new ArrayList<>(data.leafCells.length);
+        List<GameObject> fruitsList = new ArrayList<>(data.fruitCells.length);
+        List<GameObject> treesList = new ArrayList<>(data.treeX.length);
+        WindField wind = new WindField();
+        for (int t = 0; t < data.treeX.length; t++) {
+            treesList.add(createTree(data, t));
+            createCanopy(data, t, wind, leafsList, fruitsList);
         }
         list.add(leafsList);
         list.add(fruitsList);
+        list.add(treesList);
+        list.add(List.of(wind));
         return list;
     }
 
+    /**
+     * Method to randomly place trees, and optionally their leaves and fruits, in a range.
+     *
+     * @param builder The builder collecting the flora.
+     * @param minX Minimum x-coordinate for tree placement.
+     * @param maxX Maximum x-coordinate for tree placement.
+     * @param groundHeight Function to get ground height at specific x-coordinate.
+     * @param withLeafs Whether to place the leaves and fruits of each tree.
+     */
+    private void placeTrees(FloraData.Builder builder, int minX, int maxX,
+                            FloatUnaryOperator groundHeight, boolean withLeafs) {
+        for (int i = minX; i < maxX; i += Block.SIZE) {
+            int column = Math.floorDiv(i, Block.SIZE);
+            boolean random = isPlace(WorldHash.hash(seed, column, 0, TREE_SALT),
+                    Tree.PROBABILITY_OF_TREE);
+            if (random) {
+                float y = groundHeight.applyAsFloat(i) - Tree.HEIGHT_OF_TREE;
+                builder.addTree(i, y, ColorSupplier.shadeOf(
+                        WorldHash.hash(seed, column, 0, TREE_COLOR_SALT)));
+                if (withLeafs) {
+                    placeLeafs(builder, i, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to randomly place leaves and fruits in a square around a tree's head.
+     *
+     * @param builder The builder collecting the flora, whose last tree owns the canopy.
+     * @param headTreeX X-coordinate of the tree's head.
+     * @param headTreeY Y-coordinate of the tree's head.
+     */
+    private void placeLeafs(FloraData.Builder builder, float headTreeX, float headTreeY) {
+        int column = (int) Math.floor(headTreeX / Block.SIZE);
+        int cellX = 0;
+        for (int i = (int) headTreeX - CANOPY_RADIUS; i < headTreeX + CANOPY_RADIUS; i += Leaf.SIZE, cellX++) {
+            int cellY = 0;
+            for (int j = (int) headTreeY - CANOPY_RADIUS; j < headTreeY + CANOPY_RADIUS; j += Leaf.SIZE, cellY++) {
+                int cell = cellX * 16 + cellY;
+                if (isPlace(WorldHash.hash(seed, column, cell, LEAF_SALT), Leaf.PROBABILITY_OF_LEAF)) {
+                    builder.addLeaf(cell,
+                            ColorSupplier.shadeOf(WorldHash.hash(seed, column, cell, LEAF_COLOR_SALT)));
+                }
+                else if (isPlace(WorldHash.hash(seed, column, cell, FRUIT_SALT), Fruit.PROBABILITY_FRUIT)) {
+                    builder.addFruit(cell, ColorSupplier.shadeOf(
+                            WorldHash.hash(seed, column, cell, FRUIT_COLOR_SALT)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to create a tree game object.
+     *
+     * @param data The flora data.
+     * @param t Index of the tree in the data.
+     * @return The created tree.
+     */
+    private Tree createTree(FloraData data, int t) {
+        Tree tree = new Tree(new Vector2(data.treeX[t], data.treeY[t]),
+                new Vector2(Block.SIZE, Tree.HEIGHT_OF_TREE),
+                ColorSupplier.rectangle(Tree.BASIC_TREE, data.treeShades[t]));
+        tree.setTag(TAG_FOR_TREE);
+        register(tree);
+        return tree;
+    }
+
+    /**
+     * Method to create the leaves and fruits of a tree's canopy. The leaves start swaying one
+     * after the other, in the order they were placed.
+     *
+     * @param data The flora data.
+     * @param t Index of the tree in the data.
+     * @param wind The wind field swaying the leaves.
+     * @param leafsList List receiving the created leaves.
+     * @param fruitsList List receiving the created fruits.
+     */
+    private void createCanopy(FloraData data, int t, WindField wind, List<GameObject> leafsList,
+                              List<GameObject> fruitsList) {
+        float time = 0.f;
+        for (int l = data.firstLeaf[t]; l < data.firstLeaf[t + 1]; l++) {
+            Leaf leaf = createLeaf(data, t, l);
+            wind.add(leaf, time += (float) WAIT_TIME_LEAF_TASK);
+            leafsList.add(leaf);
+        }
+        for (int f = data.firstFruit[t]; f < data.firstFruit[t + 1]; f++) {
+            fruitsList.add(createFruit(data, t, f));
+        }
+    }
+
     /**
      * Method to create a leaf game object.
      *
-     * @param list List to store leaf game objects.
-     * @param i X-coordinate of the leaf.
-     * @param j Y-coordinate of the leaf.
+     * @param data The flora data.
+     * @param t Index of the leaf's tree in the data.
+     * @param l Index of the leaf in the data.
+     * @return The created leaf.
      */
-    private void createLeaf(List<GameObject> list, int i, int j) {
-        RectangleRenderable renderable = new RectangleRenderable(ColorSupplier.approximateColor
-                (Leaf.BASIC_LEAF));
-        Leaf leaf = new Leaf(new Vector2(i, j), new Vector2(Leaf.SIZE, Leaf.SIZE), renderable);
+    private Leaf createLeaf(FloraData data, int t, int l) {
+        Leaf leaf = leafPool.obtain();
+        leaf.setTopLeftCorner(new Vector2(cellX(data.treeX[t], data.leafCells[l]),
+                cellY(data.treeY[t], data.leafCells[l])));
+        leaf.renderer().setRenderable(ColorSupplier.rectangle(Leaf.BASIC_LEAF, data.leafShades[l]));
         leaf.setTag(LEAF_TAG);
-        list.add(leaf);
-        ScheduledTask scheduledTask = new ScheduledTask(leaf, time += (float) WAIT_TIME_LEAF_TASK,
-                false, () -> {
-            changeWidth(leaf);
-            changeAngle(leaf);
-        });
+        register(leaf);
+        return leaf;
     }
 
     /**
-     * Method to create a fruit game object.
+     * Method to create a fruit game object, hidden if the data records it as still regrowing.
      *
-     * @param list List to store fruit game objects.
-     * @param i X-coordinate of the fruit.
-     * @param j Y-coordinate of the fruit.
+     * @param data The flora data.
+     * @param t Index of the fruit's tree in the data.
+     * @param f Index of the fruit in the data.
+     * @return The created fruit.
      */
-    private void createFruit(List<GameObject> list, int i, int j) {
-        OvalRenderable renderable = new OvalRenderable(ColorSupplier.approximateColor(Color.red));
-        Fruit fruit = new Fruit(new Vector2(i, j), new Vector2(FRUIT_SIZE, FRUIT_SIZE), renderable);
+    private Fruit createFruit(FloraData data, int t, int f) {
+        Fruit fruit = fruitPool.obtain();
+        fruit.setTopLeftCorner(new Vector2(cellX(data.treeX[t], data.fruitCells[f]),
+                cellY(data.treeY[t], data.fruitCells[f])));
+        fruit.renderer().setRenderable(ColorSupplier.oval(Color.red, data.fruitShades[f]));
         fruit.setTag(FRUIT_TAG);
-        list.add(fruit);
+        fruit.bind(data, f, worldTime, events);
+        if (data.fruitRegrowAt[f] > worldTime.getAsDouble()) {
+            fruit.hideUntil(data.fruitRegrowAt[f]);
+        }
+        register(fruit);
+        fruitGrid.add(fruit);
+        return fruit;
+    }
+
+    /**
+     * Method to get the x-coordinate of a canopy cell.
+     *
+     * @param headTreeX X-coordinate of the tree's head.
+     * @param cell The canopy cell, packed as column * 16 + row.
+     * @return The x-coordinate of the cell's top-left corner.
+     */
+    private static float cellX(float headTreeX, byte cell) {
+        return (int) headTreeX - CANOPY_RADIUS + ((cell & 0xFF) >> 4) * Leaf.SIZE;
     }
 
     /**
-     * Method to change the angle of a leaf game object.
+     * Method to get the y-coordinate of a canopy cell.
      *
-     * @param leaf The leaf game object.
+     * @param headTreeY Y-coordinate of the tree's head.
+     * @param cell The canopy cell, packed as column * 16 + row.
+     * @return The y-coordinate of the cell's top-left corner.
      */
-    private static void changeAngle(Leaf leaf) {
-        Transition<Float> angleTransition = new Transition<>(leaf,
-                angle -> leaf.renderer().setRenderableAngle(angle),
-                BEGINNING_ANGLE, ENDING_ANGLE, Transition.CUBIC_INTERPOLATOR_FLOAT,
-                (float) TRANSITION_TIME_CHANGE_ANGLE, Transition.TransitionType.TRANSITION_LOOP,
-                null);
+    private static float cellY(float headTreeY, byte cell) {
+        return (int) headTreeY - CANOPY_RADIUS + (cell & 0xF) * Leaf.SIZE;
     }
 
     /**
-     * Method to change the width of a leaf game object.
+     * Method to start notifying a new object of jump state flips, starting its special mode
+     * right away if the avatar is jumping.
      *
-     * @param leaf The leaf game object.
+     * @param object The new object.
      */
-    private static void changeWidth(Leaf leaf) {
-        Transition<Float> dimensionsTransition = new Transition<>(leaf,
-                angle -> leaf.transform().setTopLeftCornerX(angle),
-                leaf.getTopLeftCorner().x(), leaf.getTopLeftCorner().x() + 1 / 2.f,
-                Transition.CUBIC_INTERPOLATOR_FLOAT, (float) TRANSITION_TIME_CHANGE_WIDTH,
-                Transition.TransitionType.TRANSITION_BACK_AND_FORTH, null);
+    private void register(SpecialMode object) {
+        liveObjects.add(object);
+        if (isJumping) {
+            object.setSpecialMode(true);
+        }
     }
 
     /**
      * Method to check if a place should be filled based on given probability.
      *
+     * @param hash The hash of the place, deciding whether it is filled.
      * @param probability The probability of filling the place.
      * @return True if the place should be filled, false otherwise.
      */
-    private static boolean isPlace(double probability) {
-        float randomValue = (float) new Random().nextDouble();
+    private static boolean isPlace(long hash, double probability) {
+        float randomValue = (float) WorldHash.toUnit(hash);
         return randomValue < probability;
     }
 
@@ -0,0 +1,277 @@
+package pepse.world.trees;
+
+import utils.BufferArrays;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The FloraData class holds the generated flora of an x-range as compact plain data. Trees
+ * keep their position; leaves and fruits keep only their cell in the canopy of their tree,
+ * from which their position is derived. Every object keeps its palette shade, and every fruit
+ * keeps the world time at which it can be eaten again. The data holds no game objects, so it
+ * can be generated on any thread, kept while its objects are unloaded, and turned into trees,
+ * leaves and fruits again by Flora.
+ */
+public class FloraData {
+
+    /** The top-left corner of each tree, which is also the head of its canopy. */
+    final float[] treeX, treeY;
+
+    /** The palette shade of each tree. */
+    final byte[] treeShades;
+
+    /** The index of the first leaf of each tree, followed by the total count. */
+    final int[] firstLeaf;
+
+    /** The index of the first fruit of each tree, followed by the total count. */
+    final int[] firstFruit;
+
+    /** The canopy cell of each leaf, packed as column * 16 + row. */
+    final byte[] leafCells;
+
+    /** The palette shade of each leaf. */
+    final byte[] leafShades;
+
+    /** The canopy cell of each fruit, packed as column * 16 + row. */
+    final byte[] fruitCells;
+
+    /** The palette shade of each fruit. */
+    final byte[] fruitShades;
+
+    /** The world time at which each fruit can be eaten again. Earlier times mean available. */
+    final float[] fruitRegrowAt;
+
+    /** Whether a regrow time changed since the data was generated, read or last saved. */
+    private boolean modified = false;
+
+    /**
+     * Constructs a new FloraData instance from a finished builder.
+     *
+     * @param builder The builder holding the generated flora.
+     */
+    private FloraData(Builder builder) {
+        treeX = Arrays.copyOf(builder.treeX, builder.trees);
+        treeY = Arrays.copyOf(builder.treeY, builder.trees);
+        treeShades = Arrays.copyOf(builder.treeShades, builder.trees);
+        firstLeaf = Arrays.copyOf(builder.firstLeaf, builder.trees + 1);
+        firstFruit = Arrays.copyOf(builder.firstFruit, builder.trees + 1);
+        firstLeaf[builder.trees] = builder.leaves;
+        firstFruit[builder.trees] = builder.fruits;
+        leafCells = Arrays.copyOf(builder.leafCells, builder.leaves);
+        leafShades = Arrays.copyOf(builder.leafShades, builder.leaves);
+        fruitCells = Arrays.copyOf(builder.fruitCells, builder.fruits);
+        fruitShades = Arrays.copyOf(builder.fruitShades, builder.fruits);
+        fruitRegrowAt = new float[builder.fruits];
+    }
+
+    /**
+     * Constructs a new FloraData instance from decoded arrays, which have the same meaning
+     * as the fields of the same names.
+     */
+    private FloraData(float[] treeX, float[] treeY, byte[] treeShades, int[] firstLeaf,
+                      int[] firstFruit, byte[] leafCells, byte[] leafShades, byte[] fruitCells,
+                      byte[] fruitShades, float[] fruitRegrowAt) {
+        this.treeX = treeX;
+        this.treeY = treeY;
+        this.treeShades = treeShades;
+        this.firstLeaf = firstLeaf;
+        this.firstFruit = firstFruit;
+        this.leafCells = leafCells;
+        this.leafShades = leafShades;
+        this.fruitCells = fruitCells;
+        this.fruitShades = fruitShades;
+        this.fruitRegrowAt = fruitRegrowAt;
+    }
+
+    /**
+     * Sets the world time at which a fruit can be eaten again, and marks the data modified.
+     * Must be called from the game thread.
+     *
+     * @param fruit The index of the fruit.
+     * @param time  The world time, in seconds.
+     */
+    void setFruitRegrowAt(int fruit, float time) {
+        fruitRegrowAt[fruit] = time;
+        modified = true;
+    }
+
+    /**
+     * Checks whether a regrow time changed since the data was generated, read or last saved.
+     *
+     * @return True if the data was modified.
+     */
+    public boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Marks the data as saved.
+     */
+    public void clearModified() {
+        modified = false;
+    }
+
+    /**
+     * Reads flora data written by writeTo, including the regrow time of every fruit.
+     *
+     * @param buffer The buffer to read from, positioned at the start of the data.
+     * @return The flora data.
+     */
+    public static FloraData readFrom(ByteBuffer buffer) {
+        int trees = buffer.getInt();
+        int leaves = buffer.getInt();
+        int fruits = buffer.getInt();
+        float[] treeX = BufferArrays.getFloats(buffer, trees);
+        float[] treeY = BufferArrays.getFloats(buffer, trees);
+        byte[] treeShades = BufferArrays.getShades(buffer, trees);
+        int[] firstLeaf = BufferArrays.getOffsets(buffer, trees + 1);
+        int[] firstFruit = BufferArrays.getOffsets(buffer, trees + 1);
+        if (firstLeaf[trees] != leaves || firstFruit[trees] != fruits) {
+            throw new IllegalArgumentException("corrupt flora counts");
+        }
+        byte[] leafCells = BufferArrays.getBytes(buffer, leaves);
+        byte[] leafShades = BufferArrays.getShades(buffer, leaves);
+        byte[] fruitCells = BufferArrays.getBytes(buffer, fruits);
+        byte[] fruitShades = BufferArrays.getShades(buffer, fruits);
+        float[] fruitRegrowAt = BufferArrays.getFloats(buffer, fruits);
+        return new FloraData(treeX, treeY, treeShades, firstLeaf, firstFruit, leafCells,
+                leafShades, fruitCells, fruitShades, fruitRegrowAt);
+    }
+
+    /**
+     * Writes this data at the buffer position.
+     *
+     * @param buffer The buffer to write to, with at least encodedSize bytes remaining.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(treeX.length);
+        buffer.putInt(leafCells.length);
+        buffer.putInt(fruitCells.length);
+        BufferArrays.putFloats(buffer, treeX);
+        BufferArrays.putFloats(buffer, treeY);
+        buffer.put(treeShades);
+        BufferArrays.putInts(buffer, firstLeaf);
+        BufferArrays.putInts(buffer, firstFruit);
+        buffer.put(leafCells);
+        buffer.put(leafShades);
+        buffer.put(fruitCells);
+        buffer.put(fruitShades);
+        BufferArrays.putFloats(buffer, fruitRegrowAt);
+    }
+
+    /**
+     * Gets the number of bytes writeTo writes.
+     *
+     * @return The encoded size of this data.
+     */
+    public int encodedSize() {
+        return 3 * Integer.BYTES + (int) memoryBytes();
+    }
+
+    /**
+     * Estimates the heap size of this data.
+     *
+     * @return The approximate number of bytes held by the arrays of this data.
+     */
+    public long memoryBytes() {
+        return 4L * (treeX.length + treeY.length + firstLeaf.length + firstFruit.length
+                + fruitRegrowAt.length)
+                + treeShades.length + leafCells.length + leafShades.length
+                + fruitCells.length + fruitShades.length;
+    }
+
+    /**
+     * Collects trees, leaves and fruits into growing primitive arrays.
+     * Leaves and fruits belong to the last tree added before them.
+     */
+    static class Builder {
+
+        /** The initial capacity of every array. */
+        private static final int INITIAL_CAPACITY = 16;
+
+        /** The growing tree arrays, with the same meaning as in FloraData. */
+        private float[] treeX = new float[INITIAL_CAPACITY], treeY = new float[INITIAL_CAPACITY];
+        private byte[] treeShades = new byte[INITIAL_CAPACITY];
+        private int[] firstLeaf = new int[INITIAL_CAPACITY + 1];
+        private int[] firstFruit = new int[INITIAL_CAPACITY + 1];
+
+        /** The growing leaf arrays, with the same meaning as in FloraData. */
+        private byte[] leafCells = new byte[INITIAL_CAPACITY];
+        private byte[] leafShades = new byte[INITIAL_CAPACITY];
+
+        /** The growing fruit arrays, with the same meaning as in FloraData. */
+        private byte[] fruitCells = new byte[INITIAL_CAPACITY];
+        private byte[] fruitShades = new byte[INITIAL_CAPACITY];
+
+        /** The number of trees, leaves and fruits added so far. */
+        private int trees, leaves, fruits;
+
+        /**
+         * Adds a tree, which owns the leaves and fruits added until the next tree.
+         *
+         * @param x     The x-coordinate of the top-left corner of the tree.
+         * @param y     The y-coordinate of the top-left corner of the tree.
+         * @param shade The palette shade of the tree.
+         */
+        void addTree(float x, float y, int shade) {
+            if (trees == treeX.length) {
+                int capacity = trees * 2;
+                treeX = Arrays.copyOf(treeX, capacity);
+                treeY = Arrays.copyOf(treeY, capacity);
+                treeShades = Arrays.copyOf(treeShades, capacity);
+                firstLeaf = Arrays.copyOf(firstLeaf, capacity + 1);
+                firstFruit = Arrays.copyOf(firstFruit, capacity + 1);
+            }
+            treeX[trees] = x;
+            treeY[trees] = y;
+            treeShades[trees] = (byte) shade;
+            firstLeaf[trees] = leaves;
+            firstFruit[trees] = fruits;
+            trees++;
+        }
+
+        /**
+         * Adds a leaf to the canopy of the last tree.
+         *
+         * @param cell  The canopy cell of the leaf, packed as column * 16 + row.
+         * @param shade The palette shade of the leaf.
+         */
+        void addLeaf(int cell, int shade) {
+            if (leaves == leafCells.length) {
+                int capacity = leaves * 2;
+                leafCells = Arrays.copyOf(leafCells, capacity);
+                leafShades = Arrays.copyOf(leafShades, capacity);
+            }
+            leafCells[leaves] = (byte) cell;
+            leafShades[leaves] = (byte) shade;
+            leaves++;
+        }
+
+        /**
+         * Adds a fruit to the canopy of the last tree.
+         *
+         * @param cell  The canopy cell of the fruit, packed as column * 16 + row.
+         * @param shade The palette shade of the fruit.
+         */
+        void addFruit(int cell, int shade) {
+            if (fruits == fruitCells.length) {
+                int capacity = fruits * 2;
+                fruitCells = Arrays.copyOf(fruitCells, capacity);
+                fruitShades = Arrays.copyOf(fruitShades, capacity);
+            }
+            fruitCells[fruits] = (byte) cell;
+            fruitShades[fruits] = (byte) shade;
+            fruits++;
+        }
+
+        /**
+         * Creates the flora data holding everything added so far.
+         *
+         * @return The flora data.
+         */
+        FloraData build() {
+            return new FloraData(this);
+        }
+    }
+}
@@ -1,17 +1,20 @@
 package pepse.world.trees;
 
 import danogl.GameObject;
-import danogl.gui.rendering.OvalRenderable;
+import danogl.components.Component;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.world.Avatar;
+import pepse.world.TimingWheel;
 import utils.ColorSupplier;
 
 import java.awt.*;
+import java.util.function.DoubleSupplier;
 
 /**
  * The Fruit class represents a fruit object in the game.
  */
-public class Fruit extends GameObject {
+public class Fruit extends GameObject implements SpecialMode {
 
     /** The probability of a fruit being created. */
     public static final double PROBABILITY_FRUIT = 0.08;
@@ -19,16 +22,34 @@ public class Fruit extends GameObject {
     public static final float WAIT_TIME = 0.f;
 
     /** Flag indicating special mode. */
-    private static boolean specialMode = false;
+    private boolean specialMode = false;
 
     /** Flag indicating the color of the fruit. */
     private boolean isRed = true;
 
-    /** Renderable for the fruit in orange color. */
-    private Renderable newRend = new OvalRenderable(ColorSupplier.approximateColor(Color.orange));
+    /** The palette shade of the fruit's colors, taken from its entry in the flora data. */
+    private int shade = 0;
 
-    /** Renderable for the fruit in red color. */
-    private Renderable newRend1 = new OvalRenderable(ColorSupplier.approximateColor(Color.red));
+    /** The flora data this fruit was created from, which records when it can be eaten again. */
+    private FloraData data;
+
+    /** The index of this fruit in its flora data. */
+    private int index;
+
+    /** Supplies the world time the regrow times are measured in. */
+    private DoubleSupplier worldTime = () -> 0;
+
+    /** The wheel the regrowth of the fruit is scheduled on, or null while unbound. */
+    private TimingWheel events = null;
+
+    /** The timer making the fruit available again, reused every time it is eaten. */
+    private final TimingWheel.Timer regrowTimer = new TimingWheel.Timer(this::regrow);
+
+    /** The stamp of the last FruitGrid query that collected this fruit. */
+    int collectedBy = 0;
+
+    /** The component alternating the fruit color on every frame of special mode. */
+    private final Component specialEffect = deltaTime -> changeFruitColor(this, chooseRend());
 
     /**
      * Constructs a new Fruit instance.
@@ -44,22 +65,91 @@ public class Fruit extends GameObject {
     }
 
     /**
-     * Sets the special mode for the fruit.
+     * Sets the special mode for the fruit. While it is active, the fruit alternates between
+     * red and orange on every frame.
      *
      * @param specialMode Boolean indicating whether special mode is active or not.
      */
-    public static void setSpecialMode(boolean specialMode) {
-        Fruit.specialMode = specialMode;
-    }
-
     @Override
-    public void update(float deltaTime) {
-        super.update(deltaTime);
-        // If special mode is active, alternate between red and orange color for the fruit
+    public void setSpecialMode(boolean specialMode) {
+        if (this.specialMode == specialMode) {
+            return;
+        }
+        this.specialMode = specialMode;
         if (specialMode) {
-            Renderable rend = chooseRend();
-            changeFruitColor(this,rend);
+            addComponent(specialEffect);
+        } else {
+            removeComponent(specialEffect);
+        }
+    }
+
+    /**
+     * Binds the fruit to its entry in the flora data, so that eating it is remembered after
+     * the fruit is unloaded, and its special mode colors use the shade the world seed chose.
+     *
+     * @param data      The flora data the fruit was created from.
+     * @param index     The index of the fruit in the data.
+     * @param worldTime Supplies the world time, in seconds.
+     * @param events    The wheel the regrowth of the fruit is scheduled on.
+     */
+    void bind(FloraData data, int index, DoubleSupplier worldTime, TimingWheel events) {
+        this.data = data;
+        this.index = index;
+        this.shade = data.fruitShades[index];
+        this.worldTime = worldTime;
+        this.events = events;
+    }
+
+    /**
+     * Eats the fruit: hides it, records in its flora data when it grows back, and schedules
+     * the regrowth. An unbound fruit stays eaten.
+     *
+     * @param regrowDelay The time until the fruit grows back, in seconds.
+     */
+    public void eat(float regrowDelay) {
+        double regrowAt = worldTime.getAsDouble() + regrowDelay;
+        if (data != null) {
+            data.setFruitRegrowAt(index, (float) regrowAt);
+        }
+        hideUntil(regrowAt);
+    }
+
+    /**
+     * Hides the fruit and makes it unavailable until the given world time.
+     *
+     * @param regrowAt The world time the fruit grows back at, in seconds.
+     */
+    void hideUntil(double regrowAt) {
+        setTag(Avatar.FRUIT_UNAVAILABLE);
+        renderer().setOpaqueness(0);
+        if (events != null) {
+            events.schedule(regrowTimer, regrowAt);
+        }
+    }
+
+    /**
+     * Makes the fruit visible and available again.
+     */
+    private void regrow() {
+        setTag(Flora.FRUIT_TAG);
+        renderer().setOpaqueness(1);
+    }
+
+    /**
+     * Resets the fruit for reuse: cancels its regrowth, leaves special mode, makes it visible
+     * and unbinds it from its flora data.
+     */
+    void recycle() {
+        if (events != null) {
+            events.cancel(regrowTimer);
         }
+        setSpecialMode(false);
+        isRed = true;
+        renderer().setOpaqueness(1);
+        data = null;
+        shade = 0;
+        worldTime = () -> 0;
+        events = null;
     }
 
     /**
@@ -79,10 +169,10 @@ public class Fruit extends GameObject {
     private Renderable chooseRend() {
         if (isRed) {
             isRed = false;
-            return newRend;
+            return ColorSupplier.oval(Color.orange, shade);
         } else {
             isRed = true;
-            return newRend1;
+            return ColorSupplier.oval(Color.red, shade);
         }
     }
 }
@@ -0,0 +1,244 @@
+package pepse.world.trees;
+
+import danogl.util.Vector2;
+import pepse.world.Block;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The FruitGrid class is a uniform grid of Block.SIZE cells indexing the live fruits by the
+ * cells they overlap. It answers "which fruits touch this rectangle" by looking only at the
+ * cells under the rectangle, independently of how many fruits the world holds. The cells are
+ * kept in an open-addressed table with primitive keys, like HeightCache, so lookups do not
+ * allocate.
+ */
+public class FruitGrid {
+
+    /** The initial number of slots in the table. Must be a power of two. */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /** The maximal ratio of used slots before the table grows. */
+    private static final float LOAD_FACTOR = 0.5f;
+
+    /** The multiplier used to spread cell keys over the table. */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /** The packed column and row of the cell stored in each slot. */
+    private long[] keys;
+
+    /** The fruits overlapping the cell stored in each slot, or null if the slot is empty. */
+    private List<Fruit>[] cells;
+
+    /** The number of used slots. */
+    private int size;
+
+    /** The stamp of the last query, marking the fruits it already collected. */
+    private int query = 0;
+
+    /**
+     * Constructs a new, empty FruitGrid instance.
+     */
+    public FruitGrid() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Adds a fruit to every cell it overlaps.
+     *
+     * @param fruit The fruit to add.
+     */
+    public void add(Fruit fruit) {
+        Vector2 topLeft = fruit.getTopLeftCorner();
+        Vector2 dimensions = fruit.getDimensions();
+        int maxColumn = cellOf(topLeft.x() + dimensions.x());
+        int maxRow = cellOf(topLeft.y() + dimensions.y());
+        for (int column = cellOf(topLeft.x()); column <= maxColumn; column++) {
+            for (int row = cellOf(topLeft.y()); row <= maxRow; row++) {
+                long key = key(column, row);
+                int slot = find(key);
+                if (cells[slot] == null) {
+                    if (size + 1 > keys.length * LOAD_FACTOR) {
+                        grow();
+                        slot = find(key);
+                    }
+                    keys[slot] = key;
+                    cells[slot] = new ArrayList<>(1);
+                    size++;
+                }
+                cells[slot].add(fruit);
+            }
+        }
+    }
+
+    /**
+     * Removes a fruit from every cell it overlaps.
+     *
+     * @param fruit The fruit to remove.
+     */
+    public void remove(Fruit fruit) {
+        Vector2 topLeft = fruit.getTopLeftCorner();
+        Vector2 dimensions = fruit.getDimensions();
+        int maxColumn = cellOf(topLeft.x() + dimensions.x());
+        int maxRow = cellOf(topLeft.y() + dimensions.y());
+        for (int column = cellOf(topLeft.x()); column <= maxColumn; column++) {
+            for (int row = cellOf(topLeft.y()); row <= maxRow; row++) {
+                int slot = find(key(column, row));
+                List<Fruit> fruits = cells[slot];
+                if (fruits != null) {
+                    fruits.remove(fruit);
+                    if (fruits.isEmpty()) {
+                        removeSlot(slot);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the fruits overlapping a rectangle. A fruit is collected once even if it
+     * spans several cells under the rectangle: every query stamps the fruits it collects, so
+     * a fruit found again in another cell is recognized without searching the output list.
+     *
+     * @param topLeft    The top-left corner of the rectangle.
+     * @param dimensions The width and height of the rectangle.
+     * @param out        The list the overlapping fruits are added to.
+     */
+    public void collectOverlapping(Vector2 topLeft, Vector2 dimensions, List<Fruit> out) {
+        float minX = topLeft.x(), minY = topLeft.y();
+        float maxX = minX + dimensions.x(), maxY = minY + dimensions.y();
+        query++;
+        for (int column = cellOf(minX); column <= cellOf(maxX); column++) {
+            for (int row = cellOf(minY); row <= cellOf(maxY); row++) {
+                List<Fruit> fruits = cells[find(key(column, row))];
+                if (fruits == null) {
+                    continue;
+                }
+                for (int i = 0; i < fruits.size(); i++) {
+                    Fruit fruit = fruits.get(i);
+                    if (fruit.collectedBy != query && overlaps(fruit, minX, minY, maxX, maxY)) {
+                        fruit.collectedBy = query;
+                        out.add(fruit);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether a fruit overlaps a rectangle.
+     *
+     * @param fruit The fruit.
+     * @param minX  The left edge of the rectangle.
+     * @param minY  The top edge of the rectangle.
+     * @param maxX  The right edge of the rectangle.
+     * @param maxY  The bottom edge of the rectangle.
+     * @return True if the fruit and the rectangle overlap, false otherwise.
+     */
+    private static boolean overlaps(Fruit fruit, float minX, float minY, float maxX, float maxY) {
+        Vector2 topLeft = fruit.getTopLeftCorner();
+        Vector2 dimensions = fruit.getDimensions();
+        return topLeft.x() < maxX && topLeft.x() + dimensions.x() > minX
+                && topLeft.y() < maxY && topLeft.y() + dimensions.y() > minY;
+    }
+
+    /**
+     * Calculates the cell index containing a coordinate.
+     *
+     * @param coordinate The x or y coordinate.
+     * @return The column or row index.
+     */
+    private static int cellOf(float coordinate) {
+        return (int) Math.floor(coordinate / Block.SIZE);
+    }
+
+    /**
+     * Packs a column and a row into a single key.
+     *
+     * @param column The column index.
+     * @param row    The row index.
+     * @return The cell key.
+     */
+    private static long key(int column, int row) {
+        return ((long) column << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Empties a slot, shifting back the entries that follow it so that linear probing still
+     * finds them.
+     *
+     * @param slot The slot index.
+     */
+    private void removeSlot(int slot) {
+        int mask = keys.length - 1;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (cells[next] == null) {
+                break;
+            }
+            int home = slotOf(keys[next]);
+            // Move the entry back if its home slot is not between the hole and its position
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                cells[slot] = cells[next];
+                slot = next;
+            }
+        }
+        cells[slot] = null;
+        size--;
+    }
+
+    /**
+     * Finds the slot holding the given cell, or the empty slot where it would be put.
+     *
+     * @param key The cell key.
+     * @return The slot index.
+     */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = slotOf(key);
+        while (cells[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Calculates the home slot of a cell.
+     *
+     * @param key The cell key.
+     * @return The home slot index.
+     */
+    private int slotOf(long key) {
+        long hash = key * HASH_MULTIPLIER;
+        return (int) (hash ^ (hash >>> 32)) & (keys.length - 1);
+    }
+
+    /**
+     * Doubles the table size and reinserts the used slots.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        List<Fruit>[] oldCells = cells;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCells[i] != null) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                cells[slot] = oldCells[i];
+            }
+        }
+    }
+
+    /**
+     * Allocates empty arrays for the given number of slots.
+     *
+     * @param capacity The number of slots.
+     */
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        cells = (List<Fruit>[]) new List<?>[capacity];
+    }
+}
@@ -12,7 +12,7 @@ import java.awt.*;
 /**
  * The Leaf class represents a leaf object in the game.
  */
-public class Leaf extends GameObject {
+public class Leaf extends GameObject implements SpecialMode {
     /** The FIRST angle for the leaf to move */
     public static final float FIRST_ANGLE = 0.f;
     /** the angle the leaf need to arrive */
@@ -26,8 +26,8 @@ public class Leaf extends GameObject {
     /** The probability of a leaf being created. */
     public static final double PROBABILITY_OF_LEAF = 0.6;
 
-    /** Flag indicating special mode. */
-    private static boolean specialMode = false;
+    /** The rotation started by the last special mode, or null if none was started. */
+    private Transition<Float> specialTransition = null;
 
     /**
      * Constructs a new Leaf instance.
@@ -45,25 +45,45 @@ public class Leaf extends GameObject {
         physics().setMass(GameObjectPhysics.IMMOVABLE_MASS);
     }
 
+    /**
+     * Sets the special mode for the leaf. Activating it rotates the leaf once; a rotation that
+     * is still running is replaced rather than stacked.
+     *
+     * @param specialMode Boolean indicating whether special mode is active or not.
+     */
     @Override
-    public void update(float deltaTime) {
-        super.update(deltaTime);
-        // If special mode is active, rotate the leaf
-        if (specialMode) {
-            Transition<Float> angleTransition = new Transition<>(this,
-                    angle -> this.renderer().setRenderableAngle(angle),
-                    FIRST_ANGLE, SECOND_ANGLE, Transition.CUBIC_INTERPOLATOR_FLOAT,
-                    (float) 1, Transition.TransitionType.TRANSITION_ONCE, null);
-
+    public void setSpecialMode(boolean specialMode) {
+        if (!specialMode) {
+            return;
+        }
+        if (specialTransition != null) {
+            removeComponent(specialTransition);
         }
+        specialTransition = new Transition<>(this,
+                angle -> this.renderer().setRenderableAngle(angle),
+                FIRST_ANGLE, SECOND_ANGLE, Transition.CUBIC_INTERPOLATOR_FLOAT,
+                (float) 1, Transition.TransitionType.TRANSITION_ONCE,
+                () -> specialTransition = null);
     }
 
     /**
-     * Sets the special mode for the leaf.
+     * Checks whether a special mode rotation is running, during which the wind leaves the
+     * angle of the leaf alone.
      *
-     * @param specialMode Boolean indicating whether special mode is active or not.
+     * @return True if the leaf is rotating in special mode.
+     */
+    boolean isSpecialRotating() {
+        return specialTransition != null;
+    }
+
+    /**
+     * Resets the leaf for reuse: removes its special mode rotation and restores its angle.
      */
-    public static void setSpecialMode(boolean specialMode) {
-        Leaf.specialMode = specialMode;
+    void recycle() {
+        if (specialTransition != null) {
+            removeComponent(specialTransition);
+            specialTransition = null;
+        }
+        renderer().setRenderableAngle(0);
     }
 }
@@ -0,0 +1,16 @@
+package pepse.world.trees;
+
+/**
+ * An object of the flora that changes its look while the avatar jumps.
+ * Flora notifies every live object once when the jump state flips, instead of every object
+ * polling the state on every frame.
+ */
+public interface SpecialMode {
+
+    /**
+     * Starts or stops the special mode effect of the object.
+     *
+     * @param specialMode Boolean indicating whether special mode is active or not.
+     */
+    void setSpecialMode(boolean specialMode);
+}
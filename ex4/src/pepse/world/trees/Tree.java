@@ -1,6 +1,7 @@
 package pepse.world.trees;
 
 import danogl.GameObject;
+import danogl.components.Component;
 import danogl.components.GameObjectPhysics;
 import danogl.gui.rendering.RectangleRenderable;
 import danogl.gui.rendering.Renderable;
@@ -13,7 +14,7 @@ import java.util.Random;
 /**
  * The Tree class represents a tree object in the game.
  */
-public class Tree extends GameObject {
+public class Tree extends GameObject implements SpecialMode {
 
     /** The probability of a tree being created. */
     public static final double PROBABILITY_OF_TREE = 0.05;
@@ -30,9 +31,6 @@ public class Tree extends GameObject {
     /** The basic color of the tree. */
     public static Color BASIC_TREE = new Color(100, 50, 20);
 
-    /** Flag indicating special mode. */
-    private static boolean specialMode = false;
-
     /** The x-coordinate of the tree. */
     private final float xCoordinate;
 
@@ -43,10 +41,19 @@ public class Tree extends GameObject {
     private final Random randomColor = new Random();
 
     /** The green value of the tree color. */
-    private final int GREEN_VALUE = 50;
+    private static final int GREEN_VALUE = 50;
 
     /** The blue value of the tree color. */
-    private final int BLUE_VALUE = 20;
+    private static final int BLUE_VALUE = 20;
+
+    /** The renderables the tree switches between in special mode, one per red value. */
+    private static final RectangleRenderable[] SPECIAL_RENDERABLES = createSpecialRenderables();
+
+    /** The component changing the tree color on every frame of special mode. */
+    private final Component specialEffect = deltaTime -> changeTreeColor(this, chooseRend());
+
+    /** Flag indicating special mode. */
+    private boolean specialMode = false;
 
     /**
      * Constructs a new Tree instance.
@@ -68,12 +75,22 @@ public class Tree extends GameObject {
     }
 
     /**
-     * Sets the special mode for the tree.
+     * Sets the special mode for the tree. While it is active, the tree changes its color
+     * on every frame.
      *
      * @param specialMode Boolean indicating whether special mode is active or not.
      */
-    public static void setSpecialMode(boolean specialMode) {
-        Tree.specialMode = specialMode;
+    @Override
+    public void setSpecialMode(boolean specialMode) {
+        if (this.specialMode == specialMode) {
+            return;
+        }
+        this.specialMode = specialMode;
+        if (specialMode) {
+            addComponent(specialEffect);
+        } else {
+            removeComponent(specialEffect);
+        }
     }
 
     /**
@@ -94,15 +111,6 @@ public class Tree extends GameObject {
         return yCoordinate;
     }
 
-    @Override
-    public void update(float deltaTime) {
-        super.update(deltaTime);
-        // If special mode is active, change the color of the tree
-        if (specialMode) {
-            RectangleRenderable rend = chooseRend();
-            changeTreeColor(this,rend);
-        }
-    }
     /**
      * help to change the tree color
      * @param thi
@@ -118,11 +126,22 @@ public class Tree extends GameObject {
      * @return The chosen renderable for the tree.
      */
     private RectangleRenderable chooseRend() {
-        // Generate a random number for the red component of the tree color
-        int randomNumber = randomColor.nextInt(MAX_RED_VALUE - MIN_RED_VALUE + 1) + MIN_RED_VALUE;
-        // Create a color with the random red value and fixed green and blue values
-        Color color = new Color(randomNumber, GREEN_VALUE, BLUE_VALUE);
-        // Create and return a rectangle renderable with the chosen color
-        return new RectangleRenderable(ColorSupplier.approximateColor(color));
+        // Pick a random red component of the tree color
+        return SPECIAL_RENDERABLES[randomColor.nextInt(SPECIAL_RENDERABLES.length)];
+    }
+
+    /**
+     * Creates the renderables of special mode, so that no renderable is allocated per frame.
+     *
+     * @return One renderable for each red value between MIN_RED_VALUE and MAX_RED_VALUE.
+     */
+    private static RectangleRenderable[] createSpecialRenderables() {
+        RectangleRenderable[] renderables = new RectangleRenderable[MAX_RED_VALUE - MIN_RED_VALUE + 1];
+        for (int i = 0; i < renderables.length; i++) {
+            // Create a color with the red value and fixed green and blue values
+            Color color = new Color(MIN_RED_VALUE + i, GREEN_VALUE, BLUE_VALUE);
+            renderables[i] = new RectangleRenderable(ColorSupplier.approximateColor(color));
+        }
+        return renderables;
     }
 }
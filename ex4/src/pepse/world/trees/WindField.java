@@ -0,0 +1,112 @@
+package pepse.world.trees;
+
+import danogl.GameObject;
+import danogl.util.Vector2;
+
+import java.util.Arrays;
+
+/**
+ * The WindField class sways every leaf of a chunk or canopy from a single update. Each leaf
+ * starts swaying at its own time; from then on it turns a full circle every few seconds and
+ * wobbles sideways, both eased with a cubic curve. The leaves are kept in plain arrays and
+ * moved in one loop, instead of each leaf running its own transitions. The field itself is
+ * invisible and must be added to the game objects for as long as its leaves are.
+ */
+public class WindField extends GameObject {
+
+    /** The initial capacity of the leaf arrays. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** The distance a leaf wobbles sideways, in pixels. */
+    private static final float WOBBLE_DISTANCE = 1 / 2.f;
+
+    /** The swaying leaves. */
+    private Leaf[] leaves = new Leaf[INITIAL_CAPACITY];
+
+    /** The x-coordinate each leaf wobbles from. */
+    private float[] baseX = new float[INITIAL_CAPACITY];
+
+    /** The time each leaf starts swaying, in seconds since the field was created. */
+    private float[] startTimes = new float[INITIAL_CAPACITY];
+
+    /** The number of swaying leaves. */
+    private int count = 0;
+
+    /** The time since the field was created, in seconds. */
+    private float time = 0;
+
+    /**
+     * Constructs a new, empty WindField instance.
+     */
+    public WindField() {
+        super(Vector2.ZERO, Vector2.ZERO, null);
+    }
+
+    /**
+     * Adds a leaf to the field. The leaf wobbles around its current position.
+     *
+     * @param leaf      The leaf.
+     * @param startTime The time the leaf starts swaying, in seconds from now.
+     */
+    void add(Leaf leaf, float startTime) {
+        if (count == leaves.length) {
+            leaves = Arrays.copyOf(leaves, count * 2);
+            baseX = Arrays.copyOf(baseX, count * 2);
+            startTimes = Arrays.copyOf(startTimes, count * 2);
+        }
+        leaves[count] = leaf;
+        baseX[count] = leaf.getTopLeftCorner().x();
+        startTimes[count] = time + startTime;
+        count++;
+    }
+
+    /**
+     * Gets the number of swaying leaves.
+     *
+     * @return The number of leaves.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Moves every leaf that started swaying. A leaf rotating in special mode keeps the angle
+     * of that rotation until it ends.
+     *
+     * @param deltaTime The time passed since the last frame, in seconds.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        time += deltaTime;
+        float anglePeriod = Flora.TRANSITION_TIME_CHANGE_ANGLE;
+        float wobblePeriod = (float) Flora.TRANSITION_TIME_CHANGE_WIDTH;
+        for (int i = 0; i < count; i++) {
+            float local = time - startTimes[i];
+            if (local < 0) {
+                continue;
+            }
+            Leaf leaf = leaves[i];
+            if (!leaf.isSpecialRotating()) {
+                float turn = ease((local % anglePeriod) / anglePeriod);
+                leaf.renderer().setRenderableAngle(Flora.BEGINNING_ANGLE
+                        + (Flora.ENDING_ANGLE - Flora.BEGINNING_ANGLE) * turn);
+            }
+            float wobble = (local % (2 * wobblePeriod)) / wobblePeriod;
+            if (wobble > 1) {
+                wobble = 2 - wobble;
+            }
+            leaf.transform().setTopLeftCornerX(baseX[i] + WOBBLE_DISTANCE * ease(wobble));
+        }
+    }
+
+    /**
+     * Eases a progress value with a cubic curve that starts and ends slowly.
+     *
+     * @param t The progress, between 0 and 1.
+     * @return The eased progress, between 0 and 1.
+     */
+    private static float ease(float t) {
+        return t * t * (3 - 2 * t);
+    }
+}
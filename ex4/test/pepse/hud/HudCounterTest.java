@@ -0,0 +1,88 @@
+package pepse.hud;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests how a HUD counter formats its value: rounding, decimals, signs, clamping to its
+ * digits, blanking leftover characters, and skipping values that show the same text.
+ */
+class HudCounterTest {
+
+    /** The glyphs shared by the counters. */
+    private static final GlyphCache GLYPHS = new GlyphCache(12, Color.BLACK);
+
+    /**
+     * Checks whole numbers with a label and a suffix.
+     */
+    @Test
+    void formatsWholeNumbers() {
+        HudCounter counter = new HudCounter(GLYPHS, 10, "E ", 3, 0, "%");
+        counter.setValue(100);
+        assertEquals("E 100% ", counter.shownText());
+        counter.setValue(42.4);
+        assertEquals("E 42%  ", counter.shownText());
+        counter.setValue(7.5);
+        assertEquals("E 8%   ", counter.shownText());
+        counter.setValue(0);
+        assertEquals("E 0%   ", counter.shownText());
+    }
+
+    /**
+     * Checks decimals, including a leading zero and rounding up into a new digit.
+     */
+    @Test
+    void formatsDecimals() {
+        HudCounter counter = new HudCounter(GLYPHS, 10, "", 2, 2, "");
+        counter.setValue(3.14159);
+        assertEquals("3.14  ", counter.shownText());
+        counter.setValue(0.05);
+        assertEquals("0.05  ", counter.shownText());
+        counter.setValue(9.999);
+        assertEquals("10.00 ", counter.shownText());
+    }
+
+    /**
+     * Checks negative values and clamping to the largest number the digits hold.
+     */
+    @Test
+    void formatsSignAndClamps() {
+        HudCounter counter = new HudCounter(GLYPHS, 10, "", 3, 1, "");
+        counter.setValue(-2.26);
+        assertEquals("-2.3  ", counter.shownText());
+        counter.setValue(123456);
+        assertEquals("999.9 ", counter.shownText());
+        counter.setValue(-123456);
+        assertEquals("-999.9", counter.shownText());
+    }
+
+    /**
+     * Checks that a value rounding to the shown number does not rewrite the text.
+     */
+    @Test
+    void skipsUnchangedValues() {
+        HudCounter counter = new HudCounter(GLYPHS, 10, "fps ", 3, 0, "");
+        assertTrue(counter.setValue(60.2));
+        assertFalse(counter.setValue(59.7));
+        assertFalse(counter.setValue(60.4));
+        assertTrue(counter.setValue(60.6));
+        assertEquals("fps 61  ", counter.shownText());
+    }
+
+    /**
+     * Checks that counters too wide for a long are refused.
+     */
+    @Test
+    void rejectsInvalidDigits() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new HudCounter(GLYPHS, 10, "", 0, 0, ""));
+        assertThrows(IllegalArgumentException.class,
+                () -> new HudCounter(GLYPHS, 10, "", 10, 9, ""));
+    }
+}
@@ -0,0 +1,140 @@
+package pepse.input;
+
+import danogl.gui.UserInputListener;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that replaying a recorded input trace gives the game exactly the key states and frame
+ * times it saw while recording, tick by tick.
+ */
+class TickInputTest {
+
+    /** The seed of the recorded world. */
+    private static final long SEED = 99;
+
+    /** The number of recorded ticks. */
+    private static final int TICKS = 300;
+
+    /** The directory the traces are written to. */
+    @TempDir
+    Path directory;
+
+    /** The keys the live listener holds in the current tick. */
+    private final boolean[] held = new boolean[TickInput.TRACKED_KEYS.length];
+
+    /**
+     * Records random key states and frame times, replays them, and compares every tick.
+     *
+     * @throws IOException If the trace cannot be written or read.
+     */
+    @Test
+    void replayMatchesRecording() throws IOException {
+        Path path = directory.resolve("input.trace");
+        Random random = new Random(5);
+        float[] deltaTimes = new float[TICKS];
+        boolean[][] seen = new boolean[TICKS][TickInput.TRACKED_KEYS.length];
+        TickInput recording = TickInput.recording(path, SEED);
+        UserInputListener recorded = recording.attach(liveListener());
+        for (int tick = 0; tick < TICKS; tick++) {
+            for (int k = 0; k < held.length; k++) {
+                held[k] = random.nextInt(4) == 0;
+            }
+            deltaTimes[tick] = 1f / (30 + random.nextInt(60));
+            assertEquals(deltaTimes[tick], recording.beginTick(deltaTimes[tick]));
+            for (int k = 0; k < held.length; k++) {
+                seen[tick][k] = recorded.isKeyPressed(TickInput.TRACKED_KEYS[k]);
+            }
+        }
+        recording.stopRecording();
+
+        InputTrace trace = InputTrace.read(path);
+        assertEquals(SEED, trace.seed());
+        assertArrayEquals(TickInput.TRACKED_KEYS, trace.keys());
+        assertEquals(TICKS, trace.ticks());
+        TickInput replaying = TickInput.replaying(trace, SEED);
+        UserInputListener replayed = replaying.attach(null);
+        for (int tick = 0; tick < TICKS; tick++) {
+            assertFalse(replaying.isFinished());
+            assertEquals(deltaTimes[tick], replaying.beginTick(1f));
+            for (int k = 0; k < held.length; k++) {
+                assertEquals(seen[tick][k], replayed.isKeyPressed(TickInput.TRACKED_KEYS[k]),
+                        "tick " + tick + " key " + k);
+            }
+        }
+        assertTrue(replaying.isFinished());
+        assertEquals(0.5f, replaying.beginTick(0.5f));
+        assertFalse(replayed.isKeyPressed(KeyEvent.VK_RIGHT));
+    }
+
+    /**
+     * Checks that a trace cannot be replayed in a world with another seed.
+     *
+     * @throws IOException If the trace cannot be written or read.
+     */
+    @Test
+    void rejectsOtherSeed() throws IOException {
+        Path path = directory.resolve("input.trace");
+        TickInput recording = TickInput.recording(path, SEED);
+        recording.attach(liveListener());
+        recording.beginTick(0.02f);
+        recording.stopRecording();
+        InputTrace trace = InputTrace.read(path);
+        assertThrows(IllegalArgumentException.class, () -> TickInput.replaying(trace, SEED + 1));
+    }
+
+    /**
+     * Checks that a tick cut short at the end of a trace is dropped.
+     *
+     * @throws IOException If the trace cannot be written or read.
+     */
+    @Test
+    void dropsTruncatedTick() throws IOException {
+        Path path = directory.resolve("input.trace");
+        TickInput recording = TickInput.recording(path, SEED);
+        recording.attach(liveListener());
+        recording.beginTick(0.02f);
+        recording.beginTick(0.03f);
+        recording.stopRecording();
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+        InputTrace trace = InputTrace.read(path);
+        assertEquals(1, trace.ticks());
+        assertEquals(0.02f, trace.deltaTime(0));
+    }
+
+    /**
+     * Creates a live listener reporting the keys held in the current tick.
+     *
+     * @return The live listener.
+     */
+    private UserInputListener liveListener() {
+        return (UserInputListener) Proxy.newProxyInstance(
+                UserInputListener.class.getClassLoader(), new Class<?>[]{UserInputListener.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("isKeyPressed")) {
+                        for (int k = 0; k < held.length; k++) {
+                            if (TickInput.TRACKED_KEYS[k] == (Integer) args[0]) {
+                                return held[k];
+                            }
+                        }
+                        return false;
+                    }
+                    return null;
+                });
+    }
+}
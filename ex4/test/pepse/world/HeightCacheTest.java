@@ -0,0 +1,79 @@
+package pepse.world;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that removing columns from the height cache keeps every remaining column reachable
+ * through linear probing, by checking the cache against a plain map.
+ */
+class HeightCacheTest {
+
+    /**
+     * Checks that removed columns are gone and the others keep their heights.
+     */
+    @Test
+    void removeRangeKeepsOtherColumns() {
+        HeightCache cache = new HeightCache();
+        for (int column = -500; column < 500; column++) {
+            cache.put(column, column * 0.5f);
+        }
+        cache.removeRange(-100, 250);
+        for (int column = -500; column < 500; column++) {
+            if (column >= -100 && column < 250) {
+                assertTrue(Float.isNaN(cache.get(column)), "column " + column);
+            } else {
+                assertEquals(column * 0.5f, cache.get(column), "column " + column);
+            }
+        }
+        assertEquals(650, cache.size());
+    }
+
+    /**
+     * Checks random insertions and removals of colliding and wrapping keys against a map,
+     * through several rounds of growth.
+     */
+    @Test
+    void matchesMapUnderRandomRemovals() {
+        HeightCache cache = new HeightCache();
+        Map<Integer, Float> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int round = 0; round < 20000; round++) {
+            // Multiples of a power of two collide on their low bits before mixing
+            int column = random.nextInt(2000) * (random.nextBoolean() ? 1 : 1024);
+            if (random.nextInt(3) == 0) {
+                int end = column + 1 + random.nextInt(4);
+                cache.removeRange(column, end);
+                for (int c = column; c < end; c++) {
+                    expected.remove(c);
+                }
+            } else {
+                float height = random.nextFloat();
+                cache.put(column, height);
+                expected.put(column, height);
+            }
+        }
+        assertEquals(expected.size(), cache.size());
+        for (Map.Entry<Integer, Float> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), cache.get(entry.getKey()), "column " + entry.getKey());
+        }
+    }
+
+    /**
+     * Checks that removing a column that is not cached changes nothing.
+     */
+    @Test
+    void removingMissingColumnIsHarmless() {
+        HeightCache cache = new HeightCache();
+        cache.put(3, 1f);
+        cache.removeRange(4, 10);
+        assertEquals(1, cache.size());
+        assertEquals(1f, cache.get(3));
+    }
+}
@@ -0,0 +1,192 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.gui.rendering.RectangleRenderable;
+import danogl.util.Vector2;
+import org.junit.jupiter.api.Test;
+import pepse.world.trees.Flora;
+import pepse.world.trees.FloraData;
+import pepse.world.trees.Fruit;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that pooled blocks, leaves and fruits are handed out again, and that a reused object
+ * is indistinguishable from a new one: same position, dimensions, renderable, tag, opaqueness
+ * and angle, and no component left over from its previous chunk.
+ */
+class ObjectPoolTest {
+
+    /** The dimensions of the game window. */
+    private static final Vector2 WINDOW = new Vector2(1600, 900);
+
+    /** The seed of the generated worlds. */
+    private static final int SEED = 3;
+
+    /** The width of a generated chunk, in pixels. */
+    private static final int CHUNK = 32 * Block.SIZE;
+
+    /** The time objects are updated by after being reused, in seconds. */
+    private static final float STEP = 0.1f;
+
+    /** A renderable no generated object uses. */
+    private static final RectangleRenderable STALE = new RectangleRenderable(Color.MAGENTA);
+
+    /**
+     * Checks that released objects are handed out last in, first out, and that the pool keeps
+     * no more than its size.
+     */
+    @Test
+    void reusesReleasedObjects() {
+        ObjectPool<Object> pool = new ObjectPool<>(Object::new, 2);
+        Object a = pool.obtain();
+        Object b = pool.obtain();
+        Object c = pool.obtain();
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);
+        assertSame(b, pool.obtain());
+        assertSame(a, pool.obtain());
+        Object fresh = pool.obtain();
+        assertNotSame(a, fresh);
+        assertNotSame(b, fresh);
+        assertNotSame(c, fresh);
+    }
+
+    /**
+     * Checks that recycled blocks come back as the blocks a new terrain creates.
+     */
+    @Test
+    void recycledBlocksComeBackReset() {
+        Terrain terrain = new Terrain(WINDOW, SEED);
+        List<Block> first = terrain.createFromData(terrain.generateData(0, CHUNK));
+        for (Block block : first) {
+            block.setTopLeftCorner(Vector2.ZERO);
+            block.setDimensions(Vector2.ONES);
+            block.renderer().setRenderable(STALE);
+            block.setTag("stale");
+        }
+        terrain.recycle(first);
+
+        TerrainData data = terrain.generateData(5 * CHUNK, 6 * CHUNK);
+        List<Block> reused = terrain.createFromData(data);
+        Terrain fresh = new Terrain(WINDOW, SEED);
+        List<Block> expected = fresh.createFromData(data);
+        assertEquals(expected.size(), reused.size());
+        assertTrue(identities(first).containsAll(reused));
+        for (int i = 0; i < expected.size(); i++) {
+            assertSameState(expected.get(i), reused.get(i));
+        }
+    }
+
+    /**
+     * Checks that recycled leaves and fruits come back as the ones a new flora creates, even
+     * when they were moved, turned, eaten or in special mode when their chunk was unloaded,
+     * and that a reused fruit records being eaten in its new flora data.
+     */
+    @Test
+    void recycledLeavesAndFruitsComeBackReset() {
+        Terrain terrain = new Terrain(WINDOW, SEED);
+        Flora flora = new Flora(terrain.callGround, SEED);
+        TerrainData firstGround = terrain.generateData(0, 4 * CHUNK);
+        List<GameObject> first = objects(flora.createFromData(
+                flora.generateData(0, 4 * CHUNK, firstGround::heightAt)));
+        flora.isJumping(true);
+        for (GameObject object : first) {
+            object.update(STEP);
+            object.setTopLeftCorner(Vector2.ZERO);
+            if (object instanceof Fruit) {
+                ((Fruit) object).eat(30);
+            } else {
+                object.renderer().setRenderableAngle(45);
+            }
+        }
+        flora.release(first);
+        flora.isJumping(false);
+        flora.recycle(first);
+
+        TerrainData ground = terrain.generateData(8 * CHUNK, 12 * CHUNK);
+        FloraData data = flora.generateData(8 * CHUNK, 12 * CHUNK, ground::heightAt);
+        List<GameObject> reused = objects(flora.createFromData(data));
+        Flora fresh = new Flora(terrain.callGround, SEED);
+        List<GameObject> expected = objects(fresh.createFromData(
+                fresh.generateData(8 * CHUNK, 12 * CHUNK, ground::heightAt)));
+        assertEquals(expected.size(), reused.size());
+        Set<GameObject> pooled = identities(first);
+        int reusedCount = 0;
+        for (int i = 0; i < expected.size(); i++) {
+            GameObject object = reused.get(i);
+            if (pooled.contains(object)) {
+                reusedCount++;
+            }
+            object.update(STEP);
+            expected.get(i).update(STEP);
+            assertSameState(expected.get(i), object);
+        }
+        assertTrue(reusedCount > 0);
+
+        Fruit fruit = null;
+        for (GameObject object : reused) {
+            if (object instanceof Fruit && pooled.contains(object)) {
+                fruit = (Fruit) object;
+            }
+        }
+        assertFalse(data.isModified());
+        fruit.eat(30);
+        assertTrue(data.isModified());
+    }
+
+    /**
+     * Collects the leaves and fruits among the lists created by a flora.
+     *
+     * @param lists The lists created by the flora.
+     * @return The leaves and fruits, in creation order.
+     */
+    private static List<GameObject> objects(List<List<GameObject>> lists) {
+        List<GameObject> objects = new ArrayList<>(lists.get(0));
+        objects.addAll(lists.get(1));
+        return objects;
+    }
+
+    /**
+     * Collects objects into a set compared by identity.
+     *
+     * @param objects The objects.
+     * @return The set of the objects.
+     */
+    private static Set<GameObject> identities(List<? extends GameObject> objects) {
+        Set<GameObject> set = Collections.newSetFromMap(new IdentityHashMap<>());
+        set.addAll(objects);
+        return set;
+    }
+
+    /**
+     * Checks that a reused object looks like a new one.
+     *
+     * @param expected The new object.
+     * @param actual   The reused object.
+     */
+    private static void assertSameState(GameObject expected, GameObject actual) {
+        assertEquals(expected.getClass(), actual.getClass());
+        assertEquals(expected.getTopLeftCorner().x(), actual.getTopLeftCorner().x());
+        assertEquals(expected.getTopLeftCorner().y(), actual.getTopLeftCorner().y());
+        assertEquals(expected.getDimensions().x(), actual.getDimensions().x());
+        assertEquals(expected.getDimensions().y(), actual.getDimensions().y());
+        assertEquals(expected.getTag(), actual.getTag());
+        assertSame(expected.renderer().getRenderable(), actual.renderer().getRenderable());
+        assertEquals(expected.renderer().getOpaqueness(), actual.renderer().getOpaqueness());
+        assertEquals(expected.renderer().getRenderableAngle(),
+                actual.renderer().getRenderableAngle());
+    }
+}
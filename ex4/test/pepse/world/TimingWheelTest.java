@@ -0,0 +1,162 @@
+package pepse.world;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that timers fire on the tick of their deadline at every level of the wheel, including
+ * after being cascaded down from the higher levels.
+ */
+class TimingWheelTest {
+
+    /** The world time the wheels start at, not aligned to any level of the wheel. */
+    private static final double START = 12345;
+
+    /** Deadlines, in ticks after the start, on both sides of the range of every level. */
+    private static final long[] LEVEL_BOUNDARIES = {
+            1, 2, 63, 64, 65, 127, 128, 4095, 4096, 4097, 8191, 262143, 262144, 262145, 300000};
+
+    /**
+     * Checks that timers on every level fire exactly on their deadline tick when the wheel is
+     * advanced one tick at a time.
+     */
+    @Test
+    void firesOnDeadlineTickAtEveryLevel() {
+        TimingWheel wheel = new TimingWheel(1, START);
+        long[] firedAt = new long[LEVEL_BOUNDARIES.length];
+        long[] now = {0};
+        for (int i = 0; i < LEVEL_BOUNDARIES.length; i++) {
+            int index = i;
+            wheel.schedule(new TimingWheel.Timer(() -> firedAt[index] = now[0]),
+                    START + LEVEL_BOUNDARIES[i]);
+        }
+        long last = LEVEL_BOUNDARIES[LEVEL_BOUNDARIES.length - 1];
+        for (long tick = 1; tick <= last; tick++) {
+            now[0] = tick;
+            wheel.advanceTo(START + tick);
+        }
+        for (int i = 0; i < LEVEL_BOUNDARIES.length; i++) {
+            assertEquals(LEVEL_BOUNDARIES[i], firedAt[i], "deadline " + LEVEL_BOUNDARIES[i]);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Checks that a single large advance fires every due timer, in deadline order, and leaves
+     * the later ones pending.
+     */
+    @Test
+    void largeAdvanceFiresInDeadlineOrder() {
+        TimingWheel wheel = new TimingWheel(1, START);
+        Random random = new Random(7);
+        List<Double> fired = new ArrayList<>();
+        int due = 0;
+        for (int i = 0; i < 2000; i++) {
+            double deadline = START + 1 + random.nextInt(200000);
+            if (deadline <= START + 100000) {
+                due++;
+            }
+            wheel.schedule(new TimingWheel.Timer(() -> fired.add(deadline)), deadline);
+        }
+        wheel.advanceTo(START + 100000);
+        assertEquals(due, fired.size());
+        for (int i = 1; i < fired.size(); i++) {
+            assertTrue(Math.ceil(fired.get(i - 1)) <= Math.ceil(fired.get(i)));
+        }
+        assertEquals(2000 - due, wheel.size());
+    }
+
+    /**
+     * Checks that a cancelled timer never fires and a rescheduled one fires only at its new
+     * deadline.
+     */
+    @Test
+    void cancelAndReschedule() {
+        TimingWheel wheel = new TimingWheel(1, START);
+        int[] fired = new int[2];
+        TimingWheel.Timer cancelled = new TimingWheel.Timer(() -> fired[0]++);
+        TimingWheel.Timer moved = new TimingWheel.Timer(() -> fired[1]++);
+        wheel.schedule(cancelled, START + 5000);
+        wheel.schedule(moved, START + 5000);
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+        wheel.schedule(moved, START + 70);
+        assertEquals(1, wheel.size());
+        wheel.advanceTo(START + 69);
+        assertEquals(0, fired[1]);
+        wheel.advanceTo(START + 10000);
+        assertEquals(0, fired[0]);
+        assertEquals(1, fired[1]);
+        assertFalse(moved.isPending());
+    }
+
+    /**
+     * Checks that a deadline already passed fires on the next tick.
+     */
+    @Test
+    void pastDeadlineFiresOnNextTick() {
+        TimingWheel wheel = new TimingWheel(1, START);
+        wheel.advanceTo(START + 10);
+        int[] fired = {0};
+        wheel.schedule(new TimingWheel.Timer(() -> fired[0]++), START);
+        wheel.advanceTo(START + 10.5);
+        assertEquals(0, fired[0]);
+        wheel.advanceTo(START + 11);
+        assertEquals(1, fired[0]);
+    }
+
+    /**
+     * Checks that a timer scheduling itself again from its action keeps firing periodically.
+     */
+    @Test
+    void timerCanRescheduleItself() {
+        TimingWheel wheel = new TimingWheel(1, START);
+        List<Double> fired = new ArrayList<>();
+        TimingWheel.Timer[] timer = new TimingWheel.Timer[1];
+        double[] next = {START + 100};
+        timer[0] = new TimingWheel.Timer(() -> {
+            fired.add(next[0]);
+            next[0] += 100;
+            wheel.schedule(timer[0], next[0]);
+        });
+        wheel.schedule(timer[0], next[0]);
+        wheel.advanceTo(START + 1000);
+        assertEquals(10, fired.size());
+        assertTrue(timer[0].isPending());
+    }
+
+    /**
+     * Checks that with the game's fractional step, world time accumulated step by step fires
+     * timers neither before their deadline nor more than a step after it.
+     */
+    @Test
+    void fractionalStepFiresWithinOneStep() {
+        double step = 1.0 / 120;
+        TimingWheel wheel = new TimingWheel(step, 0);
+        Random random = new Random(3);
+        int count = 500;
+        double[] deadlines = new double[count];
+        double[] firedAt = new double[count];
+        double[] time = {0};
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            deadlines[i] = random.nextDouble() * 60;
+            wheel.schedule(new TimingWheel.Timer(() -> firedAt[index] = time[0]), deadlines[i]);
+        }
+        while (wheel.size() > 0) {
+            time[0] += (float) step;
+            wheel.advanceTo(time[0]);
+        }
+        for (int i = 0; i < count; i++) {
+            assertTrue(firedAt[i] >= deadlines[i] - 1e-6, "early for " + deadlines[i]);
+            assertTrue(firedAt[i] <= deadlines[i] + step + 1e-6, "late for " + deadlines[i]);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package pepse.world;
+
+import danogl.util.Vector2;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pepse.world.trees.Flora;
+import pepse.world.trees.FloraData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the world store saves its chunks to a world file and reads them back unchanged,
+ * and that a damaged world file is rejected when it is opened or read.
+ */
+class WorldFileTest {
+
+    /** The seed of the generated world. */
+    private static final int SEED = 42;
+
+    /** The width of the generated chunks, in pixels. */
+    private static final int CHUNK_WIDTH = 600;
+
+    /** The size of the world file header. */
+    private static final int HEADER_BYTES = 32;
+
+    /** The size of an index entry of the world file. */
+    private static final int INDEX_ENTRY_BYTES = 16;
+
+    /** The terrain the chunks are generated from. */
+    private final Terrain terrain = new Terrain(new Vector2(1600, 900), SEED);
+
+    /** The flora the chunks are generated from. */
+    private final Flora flora = new Flora(terrain.callGround, SEED);
+
+    /** The directory the world files are written to. */
+    @TempDir
+    Path directory;
+
+    /**
+     * Checks that every chunk, the seed, the chunk width and the world time survive a save.
+     *
+     * @throws IOException If the file cannot be written or read.
+     */
+    @Test
+    void roundTrip() throws IOException {
+        Path path = directory.resolve("world.bin");
+        WorldStore store = new WorldStore();
+        for (int index = -2; index <= 2; index++) {
+            store.put(index, chunk(index));
+        }
+        store.advance(12.5f);
+        store.save(path, SEED, CHUNK_WIDTH);
+
+        WorldFile file = WorldFile.open(path);
+        assertEquals(SEED, file.seed());
+        assertEquals(CHUNK_WIDTH, file.chunkWidth());
+        assertEquals(12.5, file.time());
+        assertEquals(5, file.chunkIndices().size());
+        WorldStore loaded = new WorldStore(file);
+        for (int index = -2; index <= 2; index++) {
+            assertTrue(loaded.contains(index));
+            assertArrayEquals(encode(store.get(index)), encode(loaded.get(index)));
+        }
+        assertFalse(loaded.contains(3));
+        assertNull(loaded.get(3));
+    }
+
+    /**
+     * Checks that saving a loaded world again keeps the chunks never decoded, and writes the
+     * chunks replaced since, both with a blocking and a background save.
+     *
+     * @throws Exception If the file cannot be written or read, or the wait is interrupted.
+     */
+    @Test
+    void resaveKeepsUndecodedChunks() throws Exception {
+        Path path = directory.resolve("world.bin");
+        WorldStore store = new WorldStore();
+        for (int index = 0; index < 4; index++) {
+            store.put(index, chunk(index));
+        }
+        store.save(path, SEED, CHUNK_WIDTH);
+
+        WorldStore loaded = new WorldStore(WorldFile.open(path));
+        loaded.get(1);
+        loaded.put(2, chunk(7));
+        loaded.put(4, chunk(4));
+        loaded.save(path, SEED, CHUNK_WIDTH);
+        loaded.put(5, chunk(5));
+        loaded.saveAsync(path, SEED, CHUNK_WIDTH, ForkJoinPool.commonPool());
+        for (int i = 0; i < 1000 && loaded.isSaving(); i++) {
+            Thread.sleep(5);
+            loaded.pollSave();
+        }
+        assertFalse(loaded.isSaving());
+
+        WorldStore reloaded = new WorldStore(WorldFile.open(path));
+        assertArrayEquals(encode(chunk(0)), encode(reloaded.get(0)));
+        assertArrayEquals(encode(chunk(1)), encode(reloaded.get(1)));
+        assertArrayEquals(encode(chunk(7)), encode(reloaded.get(2)));
+        assertArrayEquals(encode(chunk(3)), encode(reloaded.get(3)));
+        assertArrayEquals(encode(chunk(4)), encode(reloaded.get(4)));
+        assertArrayEquals(encode(chunk(5)), encode(reloaded.get(5)));
+    }
+
+    /**
+     * Checks that an index entry pointing past the end of the file is rejected on open.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    @Test
+    void rejectsEntryOutsideFile() throws IOException {
+        Path path = savedWorld();
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer.wrap(bytes).putLong(HEADER_BYTES + Integer.BYTES, bytes.length);
+        Files.write(path, bytes);
+        assertThrows(IOException.class, () -> WorldFile.open(path));
+    }
+
+    /**
+     * Checks that a file cut short is rejected on open.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    @Test
+    void rejectsTruncatedFile() throws IOException {
+        Path path = savedWorld();
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> WorldFile.open(path));
+        Files.write(path, Arrays.copyOf(bytes, HEADER_BYTES + 1));
+        assertThrows(IOException.class, () -> WorldFile.open(path));
+    }
+
+    /**
+     * Checks that a chunk whose data is damaged inside its bounds is reported as missing, so
+     * it is generated again, while the other chunks still load.
+     *
+     * @throws IOException If the file cannot be written or read.
+     */
+    @Test
+    void damagedChunkIsRegenerated() throws IOException {
+        Path path = savedWorld();
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int damaged = buffer.getInt(HEADER_BYTES);
+        long offset = buffer.getLong(HEADER_BYTES + Integer.BYTES);
+        // The column count of the terrain, now far larger than the data of the chunk
+        buffer.putInt((int) offset + Integer.BYTES, Integer.MAX_VALUE / 8);
+        Files.write(path, bytes);
+
+        WorldStore store = new WorldStore(WorldFile.open(path));
+        assertTrue(store.contains(damaged));
+        assertNull(store.get(damaged));
+        assertFalse(store.contains(damaged));
+        for (int index = 0; index < 3; index++) {
+            if (index != damaged) {
+                assertArrayEquals(encode(chunk(index)), encode(store.get(index)));
+            }
+        }
+    }
+
+    /**
+     * Saves a world of three chunks.
+     *
+     * @return The path of the world file.
+     * @throws IOException If the file cannot be written.
+     */
+    private Path savedWorld() throws IOException {
+        Path path = directory.resolve("world.bin");
+        WorldStore store = new WorldStore();
+        for (int index = 0; index < 3; index++) {
+            store.put(index, chunk(index));
+        }
+        store.save(path, SEED, CHUNK_WIDTH);
+        return path;
+    }
+
+    /**
+     * Generates the data of a chunk the way the chunk manager does.
+     *
+     * @param index The chunk index.
+     * @return The chunk data.
+     */
+    private ChunkData chunk(int index) {
+        int minX = index * CHUNK_WIDTH;
+        TerrainData terrainData = terrain.generateData(minX, minX + CHUNK_WIDTH);
+        FloraData floraData = flora.generateData(minX, minX + CHUNK_WIDTH, terrainData::heightAt);
+        return new ChunkData(terrainData, floraData);
+    }
+
+    /**
+     * Encodes chunk data, so two chunks can be compared byte by byte.
+     *
+     * @param data The chunk data.
+     * @return The encoded data.
+     */
+    private static byte[] encode(ChunkData data) {
+        ByteBuffer buffer = ByteBuffer.allocate(data.encodedSize());
+        data.writeTo(buffer);
+        return buffer.array();
+    }
+}
@@ -0,0 +1,171 @@
+package pepse.world.trees;
+
+import danogl.util.Vector2;
+import org.junit.jupiter.api.Test;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.TerrainData;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the generated world depends only on the seed and the coordinates: the same seed
+ * gives the same terrain and flora, whatever the order and the ranges the world is generated
+ * in, and a fruit's saved state survives a save of the world.
+ */
+class WorldGenDeterminismTest {
+
+    /** The dimensions of the game window. */
+    private static final Vector2 WINDOW = new Vector2(1600, 900);
+
+    /** The seed of the generated worlds. */
+    private static final int SEED = 7;
+
+    /** The width of a generated chunk, in pixels. */
+    private static final int CHUNK = 40 * Block.SIZE;
+
+    /**
+     * Checks that two generators with the same seed give identical data.
+     */
+    @Test
+    void sameSeedGivesSameWorld() {
+        Terrain first = new Terrain(WINDOW, SEED);
+        Terrain second = new Terrain(WINDOW, SEED);
+        TerrainData a = first.generateData(-CHUNK, 3 * CHUNK);
+        TerrainData b = second.generateData(-CHUNK, 3 * CHUNK);
+        assertArrayEquals(encode(a), encode(b));
+        FloraData floraA = new Flora(first.callGround, SEED).generateData(-CHUNK, 3 * CHUNK,
+                a::heightAt);
+        FloraData floraB = new Flora(second.callGround, SEED).generateData(-CHUNK, 3 * CHUNK,
+                b::heightAt);
+        assertArrayEquals(encode(floraA), encode(floraB));
+    }
+
+    /**
+     * Checks that another seed gives another layout.
+     */
+    @Test
+    void otherSeedGivesOtherWorld() {
+        Terrain terrain = new Terrain(WINDOW, SEED);
+        Terrain other = new Terrain(WINDOW, SEED + 1);
+        TerrainData a = terrain.generateData(0, 10 * CHUNK);
+        TerrainData b = other.generateData(0, 10 * CHUNK);
+        assertFalse(Arrays.equals(encode(a), encode(b)));
+        FloraData floraA = new Flora(terrain.callGround, SEED).generateData(0, 10 * CHUNK,
+                a::heightAt);
+        FloraData floraB = new Flora(other.callGround, SEED + 1).generateData(0, 10 * CHUNK,
+                b::heightAt);
+        assertFalse(Arrays.equals(floraA.treeX, floraB.treeX));
+    }
+
+    /**
+     * Checks that the world generated chunk by chunk, in any order, matches the world
+     * generated in one range, and that the cached ground heights match the generated ones.
+     */
+    @Test
+    void chunksMatchWholeRange() {
+        Terrain terrain = new Terrain(WINDOW, SEED);
+        Flora flora = new Flora(terrain.callGround, SEED);
+        TerrainData whole = terrain.generateData(0, 4 * CHUNK);
+        FloraData wholeFlora = flora.generateData(0, 4 * CHUNK, whole::heightAt);
+        FloraData[] chunks = new FloraData[4];
+        for (int index : new int[]{2, 0, 3, 1}) {
+            TerrainData data = terrain.generateData(index * CHUNK, (index + 1) * CHUNK);
+            for (int x = index * CHUNK; x < (index + 1) * CHUNK; x += Block.SIZE) {
+                assertEquals(whole.heightAt(x), data.heightAt(x), "x = " + x);
+                assertEquals(whole.heightAt(x), terrain.groundHeightAt(x), "x = " + x);
+            }
+            chunks[index] = flora.generateData(index * CHUNK, (index + 1) * CHUNK, data::heightAt);
+        }
+        float[] treeX = new float[0];
+        byte[] leafCells = new byte[0];
+        byte[] fruitShades = new byte[0];
+        for (FloraData chunk : chunks) {
+            treeX = concat(treeX, chunk.treeX);
+            leafCells = concat(leafCells, chunk.leafCells);
+            fruitShades = concat(fruitShades, chunk.fruitShades);
+        }
+        assertTrue(wholeFlora.treeX.length > 0);
+        assertArrayEquals(wholeFlora.treeX, treeX);
+        assertArrayEquals(wholeFlora.leafCells, leafCells);
+        assertArrayEquals(wholeFlora.fruitShades, fruitShades);
+    }
+
+    /**
+     * Checks that only a changed regrow time marks the data modified, and that saving clears
+     * the mark.
+     */
+    @Test
+    void regrowTimeMarksDataModified() {
+        Terrain terrain = new Terrain(WINDOW, SEED);
+        TerrainData data = terrain.generateData(0, 10 * CHUNK);
+        FloraData flora = new Flora(terrain.callGround, SEED).generateData(0, 10 * CHUNK,
+                data::heightAt);
+        assertTrue(flora.fruitRegrowAt.length > 0);
+        assertFalse(flora.isModified());
+        flora.setFruitRegrowAt(0, 30);
+        assertTrue(flora.isModified());
+        ByteBuffer buffer = ByteBuffer.wrap(encode(flora));
+        FloraData read = FloraData.readFrom(buffer);
+        assertEquals(30, read.fruitRegrowAt[0]);
+        assertFalse(read.isModified());
+        flora.clearModified();
+        assertFalse(flora.isModified());
+    }
+
+    /**
+     * Encodes terrain data.
+     *
+     * @param data The terrain data.
+     * @return The encoded data.
+     */
+    private static byte[] encode(TerrainData data) {
+        ByteBuffer buffer = ByteBuffer.allocate(data.encodedSize());
+        data.writeTo(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Encodes flora data.
+     *
+     * @param data The flora data.
+     * @return The encoded data.
+     */
+    private static byte[] encode(FloraData data) {
+        ByteBuffer buffer = ByteBuffer.allocate(data.encodedSize());
+        data.writeTo(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Appends one float array to another.
+     *
+     * @param first  The first array.
+     * @param second The array appended to it.
+     * @return The concatenated array.
+     */
+    private static float[] concat(float[] first, float[] second) {
+        float[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * Appends one byte array to another.
+     *
+     * @param first  The first array.
+     * @param second The array appended to it.
+     * @return The concatenated array.
+     */
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
@@ -0,0 +1,65 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that the bulk noiseRange overloads give exactly the values noise gives for every point.
+ */
+class NoiseGeneratorTest {
+
+    /** The seeds the generators are built with, including a fractional and a negative one. */
+    private static final double[] SEEDS = {1, 1234, 0.37, -52.5};
+
+    /** The start point of the generators, as the terrain uses it. */
+    private static final int START_POINT = 300;
+
+    /** The noise factor, as the terrain uses it. */
+    private static final double FACTOR = 30 * 7;
+
+    /** The number of points generated by every range. */
+    private static final int COUNT = 500;
+
+    /** The first point and the step of every range. */
+    private static final double[][] RANGES = {{0, 1}, {-3000, 30}, {12345.5, 0.25}};
+
+    /**
+     * Checks that the double overload matches noise.
+     */
+    @Test
+    void doubleRangeMatchesNoise() {
+        for (double seed : SEEDS) {
+            NoiseGenerator generator = new NoiseGenerator(seed, START_POINT);
+            for (double[] range : RANGES) {
+                double[] out = new double[COUNT];
+                generator.noiseRange(range[0], range[1], COUNT, FACTOR, out);
+                for (int i = 0; i < COUNT; i++) {
+                    double x = range[0] + i * range[1];
+                    assertEquals(generator.noise(x, FACTOR), out[i], "x = " + x);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that the float overload matches noise rounded to float, and leaves the rest of
+     * the output untouched.
+     */
+    @Test
+    void floatRangeMatchesNoise() {
+        for (double seed : SEEDS) {
+            NoiseGenerator generator = new NoiseGenerator(seed, START_POINT);
+            for (double[] range : RANGES) {
+                float[] out = new float[COUNT + 1];
+                out[COUNT] = Float.NaN;
+                generator.noiseRange(range[0], range[1], COUNT, FACTOR, out);
+                for (int i = 0; i < COUNT; i++) {
+                    double x = range[0] + i * range[1];
+                    assertEquals((float) generator.noise(x, FACTOR), out[i], "x = " + x);
+                }
+                assertEquals(Float.NaN, out[COUNT]);
+            }
+        }
+    }
+}